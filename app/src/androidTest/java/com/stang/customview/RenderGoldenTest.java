@@ -0,0 +1,150 @@
+package com.stang.customview;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pixel regression tests: every figure mode of both views at fixed points of the cycle,
+ * compared to the golden PNGs in src/androidTest/assets/golden.
+ * The goldens belong to the device they were recorded on, record them again when the reference device changes:
+ * run with -Pandroid.testInstrumentationRunnerArguments.record=true, pull the golden folder
+ * from the app's external files dir and copy it into the assets.
+ * Mismatching images are written to golden-diff in the same dir.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RenderGoldenTest {
+    private static final float[] PROGRESS = {0f, 0.25f, 0.5f, 0.75f};
+    private static final int VERTEX_COUNT = 4;
+
+    // anti aliasing may differ a little between Skia builds
+    private static final int CHANNEL_TOLERANCE = 8;
+    private static final float PIXEL_TOLERANCE = 0.005f;
+
+    private Context mTestContext;
+    private File mOutputDir;
+    private boolean isRecording;
+    private ViewRenderer mRenderer;
+    private final StringBuilder mFailures = new StringBuilder();
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        mTestContext = InstrumentationRegistry.getContext();
+        File dir = context.getExternalFilesDir(null);
+        mOutputDir = dir != null ? dir : context.getFilesDir();
+        isRecording = Boolean.parseBoolean(InstrumentationRegistry.getArguments().getString("record"));
+        mRenderer = new ViewRenderer(context);
+    }
+
+    @Test
+    public void myView_matchesGoldens() throws Exception {
+        for (int i = 0; i < ViewRenderer.FIGURES.length; i++) {
+            View view = mRenderer.newMyView(ViewRenderer.FIGURES[i], VERTEX_COUNT);
+            checkCycle(view, "my_view_" + ViewRenderer.FIGURE_NAMES[i]);
+        }
+        assertEquals("", mFailures.toString());
+    }
+
+    @Test
+    public void rectAnimationView_matchesGoldens() throws Exception {
+        for (int i = 0; i < ViewRenderer.FIGURES.length; i++) {
+            View view = mRenderer.newRectAnimationView(ViewRenderer.FIGURES[i], VERTEX_COUNT);
+            checkCycle(view, "rect_animation_view_" + ViewRenderer.FIGURE_NAMES[i]);
+        }
+        assertEquals("", mFailures.toString());
+    }
+
+
+    private void checkCycle(View view, String prefix) throws Exception {
+        for (float progress : PROGRESS) {
+            String name = prefix + "_" + (int) (progress * 100) + ".png";
+            check(mRenderer.render(view, progress), name);
+        }
+    }
+
+    private void check(Bitmap actual, String name) throws Exception {
+        if (isRecording) {
+            write(actual, new File(mOutputDir, "golden/" + name));
+            return;
+        }
+
+        Bitmap golden = readGolden(name);
+        if (golden == null) {
+            mFailures.append(name).append(": no golden, record it with the record=true runner argument\n");
+            return;
+        }
+        float different = differentPixels(golden, actual);
+        if (different > PIXEL_TOLERANCE) {
+            write(actual, new File(mOutputDir, "golden-diff/" + name));
+            mFailures.append(name).append(": ").append(different * 100).append("% of the pixels differ\n");
+        }
+    }
+
+    // from the assets of the test apk
+    private Bitmap readGolden(String name) throws Exception {
+        InputStream in;
+        try {
+            in = mTestContext.getAssets().open("golden/" + name);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        try {
+            return BitmapFactory.decodeStream(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    // share of the pixels with a channel off by more than the tolerance, all of them for a size mismatch
+    private static float differentPixels(Bitmap golden, Bitmap actual) {
+        int width = actual.getWidth();
+        int height = actual.getHeight();
+        if (golden.getWidth() != width || golden.getHeight() != height) return 1;
+
+        int[] expectedRow = new int[width];
+        int[] actualRow = new int[width];
+        int different = 0;
+        for (int y = 0; y < height; y++) {
+            golden.getPixels(expectedRow, 0, width, 0, y, width, 1);
+            actual.getPixels(actualRow, 0, width, 0, y, width, 1);
+            for (int x = 0; x < width; x++) {
+                int e = expectedRow[x];
+                int a = actualRow[x];
+                if (Math.abs(Color.alpha(e) - Color.alpha(a)) > CHANNEL_TOLERANCE
+                        || Math.abs(Color.red(e) - Color.red(a)) > CHANNEL_TOLERANCE
+                        || Math.abs(Color.green(e) - Color.green(a)) > CHANNEL_TOLERANCE
+                        || Math.abs(Color.blue(e) - Color.blue(a)) > CHANNEL_TOLERANCE) {
+                    different++;
+                }
+            }
+        }
+        return different / (float) (width * height);
+    }
+
+    private static void write(Bitmap bitmap, File file) throws Exception {
+        file.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.stang.customview;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import com.stang.customview.core.Histogram;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Time the draw code of both views takes per frame on the device, for every figure mode at several vertex counts.
+ * The views draw into a software bitmap canvas: this is the CPU side of onDraw, not the hardware pipeline,
+ * whose cost shows in FrameMetrics or gfxinfo of the running app.
+ * The percentiles are written to render-time.csv in the app's external files dir to compare before and after
+ * a rendering change. The numbers depend on the device, a median over one vsync interval only fails the test
+ * when run with -Pandroid.testInstrumentationRunnerArguments.frameBudget=true.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RenderTimeTest {
+    private static final int[] VERTEX_COUNTS = {4, 8, 16, 32};
+    private static final int WARM_UP_FRAMES = 50;
+    private static final int FRAMES = 200;
+    private static final long FRAME_BUDGET_MICROS = FrameClock.DEFAULT_VSYNC_INTERVAL_NANOS / 1000;
+
+    private Context mContext;
+    private ViewRenderer mRenderer;
+    private boolean isBudgetChecked;
+    private final Histogram mFrameTime = new Histogram();
+    private final StringBuilder mOverBudget = new StringBuilder();
+
+    @Before
+    public void setUp() throws Exception {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mRenderer = new ViewRenderer(mContext);
+        isBudgetChecked = Boolean.parseBoolean(InstrumentationRegistry.getArguments().getString("frameBudget"));
+    }
+
+    @Test
+    public void renderTime_allFiguresAndVertexCounts() throws Exception {
+        File dir = mContext.getExternalFilesDir(null);
+        Writer report = new FileWriter(new File(dir != null ? dir : mContext.getFilesDir(), "render-time.csv"));
+        try {
+            report.write("view,figure,vertices,frames,mean_us,p50_us,p90_us,p99_us,max_us\n");
+            for (int i = 0; i < ViewRenderer.FIGURES.length; i++) {
+                for (int vertexCount : VERTEX_COUNTS) {
+                    String figureName = ViewRenderer.FIGURE_NAMES[i];
+                    measure(report, "MyView", figureName, vertexCount,
+                            mRenderer.newMyView(ViewRenderer.FIGURES[i], vertexCount));
+                    measure(report, "RectAnimationView", figureName, vertexCount,
+                            mRenderer.newRectAnimationView(ViewRenderer.FIGURES[i], vertexCount));
+                }
+            }
+        } finally {
+            report.close();
+        }
+        if (isBudgetChecked) assertEquals("", mOverBudget.toString());
+    }
+
+
+    private void measure(Writer report, String viewName, String figureName, int vertexCount, View view) throws Exception {
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            mRenderer.render(view, i / (float) WARM_UP_FRAMES);
+        }
+        mFrameTime.reset();
+        for (int i = 0; i < FRAMES; i++) {
+            // a new point of the cycle every frame, like a running animation
+            float progress = i / (float) FRAMES;
+            long start = System.nanoTime();
+            mRenderer.render(view, progress);
+            mFrameTime.record((System.nanoTime() - start) / 1000);
+        }
+
+        String config = viewName + "," + figureName + "," + vertexCount;
+        assertEquals(config, FRAMES, mFrameTime.getCount());
+        long p50 = mFrameTime.getPercentile(50);
+        long p90 = mFrameTime.getPercentile(90);
+        long p99 = mFrameTime.getPercentile(99);
+        long max = mFrameTime.getMax();
+        assertTrue(config, p50 <= p90 && p90 <= p99 && p99 <= max);
+        if (p50 > FRAME_BUDGET_MICROS) {
+            mOverBudget.append(config).append(": median ").append(p50).append(" us\n");
+        }
+
+        report.write(config + "," + FRAMES + "," + mFrameTime.getMean() + "," + p50 + "," + p90 + "," + p99 + "," + max + "\n");
+    }
+}
@@ -0,0 +1,94 @@
+package com.stang.customview;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.ShapeDrawable;
+import android.graphics.drawable.shapes.OvalShape;
+import android.view.View;
+
+/**
+ * Builds MyView and RectAnimationView at a fixed pixel size and renders them into a software bitmap
+ * at a point of their cycle. Shared by the rendering tests.
+ */
+class ViewRenderer {
+    static final int WIDTH = 200;
+    static final int HEIGHT = 200;
+
+    static final int[] FIGURES = {
+            RectAnimationView.FIGURE_NONE,
+            RectAnimationView.FIGURE_RECTANGLE,
+            RectAnimationView.FIGURE_CIRCLE,
+            RectAnimationView.FIGURE_IMAGE
+    };
+    static final String[] FIGURE_NAMES = {"none", "rectangle", "circle", "image"};
+
+    private final Context mContext;
+    private final Bitmap mBitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+    private final Canvas mCanvas = new Canvas(mBitmap);
+
+
+    ViewRenderer(Context context) {
+        mContext = context;
+    }
+
+    MyView newMyView(int figure, int vertexCount) {
+        MyView view = new MyView(mContext, null);
+        view.setLineColor(Color.BLACK);
+        view.setLineWidth(2);
+        view.setDotColor(Color.BLUE);
+        view.setDotWidth(8);
+        view.setDotFigure(figure);
+        view.setCustomImage(newDotImage());
+        view.setVertexCount(vertexCount);
+        layout(view);
+        return view;
+    }
+
+    RectAnimationView newRectAnimationView(int figure, int vertexCount) {
+        RectAnimationView view = new RectAnimationView(mContext, null);
+        // driven by setProgress only
+        view.setRunningOnSizeChanged(false);
+        view.edit()
+                .setLineColor(Color.BLACK)
+                .setLineWidth(2)
+                .setDotColor(Color.BLUE)
+                .setDotWidth(8)
+                .setDotFigure(figure)
+                .setVertexCount(vertexCount)
+                .apply();
+        view.setDotsImage(newDotImage());
+        layout(view);
+        return view;
+    }
+
+    /**
+     * Draws the view at the given point of its cycle, the returned bitmap is reused by the next call.
+     */
+    Bitmap render(View view, float progress) {
+        if (view instanceof MyView) {
+            ((MyView) view).setProgress(progress);
+        } else {
+            ((RectAnimationView) view).setProgress(progress);
+        }
+        mBitmap.eraseColor(Color.TRANSPARENT);
+        view.draw(mCanvas);
+        return mBitmap;
+    }
+
+    private static void layout(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    // a plain shape instead of the app drawable, so the goldens do not change with the artwork
+    private static ShapeDrawable newDotImage() {
+        ShapeDrawable image = new ShapeDrawable(new OvalShape());
+        image.getPaint().setColor(Color.RED);
+        image.setIntrinsicWidth(16);
+        image.setIntrinsicHeight(16);
+        return image;
+    }
+}
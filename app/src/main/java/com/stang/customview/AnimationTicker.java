@@ -0,0 +1,222 @@
+package com.stang.customview;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.os.PowerManager;
+
+import com.stang.customview.core.Clock;
+
+import java.util.ArrayList;
+
+/**
+ * Process wide ticker shared by all running views.
+ * Holds a single FrameClock and makes one pass over the registered clients per frame,
+ * so the scheduling cost does not grow with the number of animated views.
+ * Also decides the frame rate of views in FRAME_RATE_AUTO: full vsync normally,
+ * the auto cap in power save mode or while more than the instance limit are animating.
+ * Tests can replace the clock and step tick() directly, see FrameStepper: with any clock but Clock.SYSTEM
+ * the display frames are off and tick() is the only frame source.
+ * Must be used from the main thread only.
+ */
+
+public class AnimationTicker {
+    public static final int FRAME_RATE_AUTO = -1;
+    public static final int FRAME_RATE_VSYNC = 0;
+
+    public static final int DEFAULT_AUTO_FRAME_RATE = 30;
+    public static final int DEFAULT_AUTO_INSTANCE_LIMIT = 4;
+
+    public interface Client {
+        void onTick(long frameTimeNanos);
+    }
+
+    private static AnimationTicker sInstance;
+
+    private final ArrayList<Client> mClients = new ArrayList<>();
+    private Client[] mDispatch = new Client[8];
+    private int mDispatchCount = 0;
+    private boolean isDispatching = false;
+
+    private long mLastTickDuration = 0;
+    private long mTotalTickDuration = 0;
+    private long mTickCount = 0;
+    private Clock mClock = Clock.SYSTEM;
+
+    private int mAutoFrameRate = DEFAULT_AUTO_FRAME_RATE;
+    private int mAutoInstanceLimit = DEFAULT_AUTO_INSTANCE_LIMIT;
+    private boolean isPowerSaveMode = false;
+    private boolean isWatchingPowerSaveMode = false;
+
+    private final FrameClock mFrameClock = new FrameClock(new FrameClock.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            tick(frameTimeNanos);
+        }
+    }, new Clock() {
+        // the fallback frame times follow whatever clock is set
+        @Override
+        public long nanoTime() {
+            return mClock.nanoTime();
+        }
+    });
+
+
+    public static AnimationTicker getInstance() {
+        if (sInstance == null) {
+            sInstance = new AnimationTicker();
+        }
+        return sInstance;
+    }
+
+    AnimationTicker() {
+    }
+
+
+    public void register(Client client) {
+        if (mClients.contains(client)) return;
+        mClients.add(client);
+        updateFrameClock();
+    }
+
+    public void unregister(Client client) {
+        if (!mClients.remove(client)) return;
+        if (isDispatching) {
+            // do not deliver the rest of the current pass to a removed client
+            for (int i = 0; i < mDispatchCount; i++) {
+                if (mDispatch[i] == client) mDispatch[i] = null;
+            }
+        }
+        updateFrameClock();
+    }
+
+    public boolean isRegistered(Client client) { return mClients.contains(client); }
+
+    public int getActiveCount() { return mClients.size(); }
+
+    public long getLastTickDurationNanos() { return mLastTickDuration; }
+
+    public long getAverageTickDurationNanos() { return mTickCount == 0 ? 0 : mTotalTickDuration / mTickCount; }
+
+    public long getTickCount() { return mTickCount; }
+
+    /**
+     * Time base of the frame times, also used by the views to time their drawing.
+     */
+    public Clock getClock() { return mClock; }
+
+    /**
+     * Replaces the time base, e.g. with a VirtualClock whose frames are delivered through tick() by a test.
+     * The display frames stop until Clock.SYSTEM is set again, they would interleave with the virtual ones.
+     */
+    public void setClock(Clock clock) {
+        mClock = clock;
+        updateFrameClock();
+    }
+
+    public void resetStats() {
+        mLastTickDuration = 0;
+        mTotalTickDuration = 0;
+        mTickCount = 0;
+    }
+
+    /**
+     * Frame rate of FRAME_RATE_AUTO views in power save mode or above instanceLimit animating views.
+     */
+    public void setAutoThrottle(int frameRate, int instanceLimit) {
+        mAutoFrameRate = frameRate;
+        mAutoInstanceLimit = instanceLimit;
+    }
+
+    public int getAutoFrameRate() { return mAutoFrameRate; }
+
+    public int getAutoInstanceLimit() { return mAutoInstanceLimit; }
+
+    /**
+     * Frame rate a view should use for its policy, FRAME_RATE_VSYNC for no cap.
+     */
+    public int resolveFrameRate(int frameRate) {
+        if (frameRate != FRAME_RATE_AUTO) return frameRate;
+        if (isPowerSaveMode || mClients.size() > mAutoInstanceLimit) return mAutoFrameRate;
+        return FRAME_RATE_VSYNC;
+    }
+
+    public boolean isPowerSaveMode() { return isPowerSaveMode; }
+
+    /**
+     * Starts following the system power save mode, once per process. Does nothing below API 21.
+     */
+    public void watchPowerSaveMode(Context context) {
+        if (isWatchingPowerSaveMode || Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) return;
+        isWatchingPowerSaveMode = true;
+        PowerSaveWatcher.watch(this, context.getApplicationContext());
+    }
+
+
+    // display frames only while someone animates on the system clock
+    private void updateFrameClock() {
+        if (!mClients.isEmpty() && mClock == Clock.SYSTEM) {
+            mFrameClock.start();
+        } else {
+            mFrameClock.stop();
+        }
+    }
+
+    // one frame for all clients, called by the frame clock or by a headless test
+    void tick(long frameTimeNanos) {
+        long start = mClock.nanoTime();
+
+        // copy into a reused array so clients can (un)register themselves while ticking
+        mDispatchCount = mClients.size();
+        if (mDispatch.length < mDispatchCount) {
+            mDispatch = new Client[mDispatchCount * 2];
+        }
+        for (int i = 0; i < mDispatchCount; i++) {
+            mDispatch[i] = mClients.get(i);
+        }
+
+        isDispatching = true;
+        for (int i = 0; i < mDispatchCount; i++) {
+            Client client = mDispatch[i];
+            if (client != null) {
+                client.onTick(frameTimeNanos);
+            }
+        }
+        isDispatching = false;
+
+        for (int i = 0; i < mDispatchCount; i++) {
+            mDispatch[i] = null;
+        }
+
+        mLastTickDuration = mClock.nanoTime() - start;
+        mTotalTickDuration += mLastTickDuration;
+        mTickCount++;
+    }
+
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static class PowerSaveWatcher extends BroadcastReceiver {
+        private final AnimationTicker mTicker;
+        private final PowerManager mPowerManager;
+
+        static void watch(AnimationTicker ticker, Context context) {
+            PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+            PowerSaveWatcher watcher = new PowerSaveWatcher(ticker, powerManager);
+            context.registerReceiver(watcher, new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+            ticker.isPowerSaveMode = powerManager.isPowerSaveMode();
+        }
+
+        PowerSaveWatcher(AnimationTicker ticker, PowerManager powerManager) {
+            mTicker = ticker;
+            mPowerManager = powerManager;
+        }
+
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            mTicker.isPowerSaveMode = mPowerManager.isPowerSaveMode();
+        }
+    }
+}
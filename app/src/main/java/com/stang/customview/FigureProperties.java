@@ -0,0 +1,111 @@
+package com.stang.customview;
+
+import com.stang.customview.core.PendingSlot;
+
+/**
+ * A set of property changes for MyView or RectAnimationView, only the properties that were set are applied.
+ * Either returned by the view's edit() and applied on the main thread with apply(),
+ * or built on any thread and handed to postProperties(); it must not be changed afterwards.
+ * Both apply all changes in one pass: one topology, geometry and timing rebuild, one paint update, one invalidate.
+ */
+
+public class FigureProperties {
+    static final int SPEED = 1;
+    static final int LINE_COLOR = 1 << 1;
+    static final int LINE_WIDTH = 1 << 2;
+    static final int DOT_FIGURE = 1 << 3;
+    static final int DOT_WIDTH = 1 << 4;
+    static final int DOT_COLOR = 1 << 5;
+    static final int VERTEX_COUNT = 1 << 6;
+    static final int EDGE_TOPOLOGY = 1 << 7;
+    static final int EDGE_BUDGET = 1 << 8;
+    static final int FRAME_RATE = 1 << 9;
+
+    static final PendingSlot.Merger<FigureProperties> MERGER = new PendingSlot.Merger<FigureProperties>() {
+        @Override
+        public FigureProperties merge(FigureProperties pending, FigureProperties update) {
+            FigureProperties merged = new FigureProperties();
+            merged.putAll(pending);
+            merged.putAll(update);
+            return merged;
+        }
+    };
+
+    interface Target {
+        void applyProperties(FigureProperties properties);
+    }
+
+    private final Target mTarget;
+
+    int mMask = 0;
+    float mSpeed;
+    int mLineColor;
+    int mLineWidth;
+    int mDotFigure;
+    int mDotWidth;
+    int mDotColor;
+    int mVertexCount;
+    int mEdgeTopology;
+    int mEdgeBudget;
+    int mFrameRate;
+
+
+    public FigureProperties() {
+        this(null);
+    }
+
+    FigureProperties(Target target) {
+        mTarget = target;
+    }
+
+    /**
+     * Applies the changes to the view that created this set with edit(), on the main thread.
+     */
+    public void apply() {
+        if (mTarget == null) {
+            throw new IllegalStateException("not created by edit(), use postProperties()");
+        }
+        mTarget.applyProperties(this);
+    }
+
+
+    public FigureProperties setSpeed(float speed) { mSpeed = speed; mMask |= SPEED; return this; }
+
+    public FigureProperties setLineColor(int lineColor) { mLineColor = lineColor; mMask |= LINE_COLOR; return this; }
+
+    public FigureProperties setLineWidth(int lineWidth) { mLineWidth = lineWidth; mMask |= LINE_WIDTH; return this; }
+
+    public FigureProperties setDotFigure(int dotFigure) { mDotFigure = dotFigure; mMask |= DOT_FIGURE; return this; }
+
+    public FigureProperties setDotWidth(int dotWidth) { mDotWidth = dotWidth; mMask |= DOT_WIDTH; return this; }
+
+    public FigureProperties setDotColor(int dotColor) { mDotColor = dotColor; mMask |= DOT_COLOR; return this; }
+
+    public FigureProperties setVertexCount(int vertexCount) { mVertexCount = vertexCount; mMask |= VERTEX_COUNT; return this; }
+
+    public FigureProperties setEdgeTopology(int edgeTopology) { mEdgeTopology = edgeTopology; mMask |= EDGE_TOPOLOGY; return this; }
+
+    public FigureProperties setEdgeBudget(int edgeBudget) { mEdgeBudget = edgeBudget; mMask |= EDGE_BUDGET; return this; }
+
+    public FigureProperties setFrameRate(int frameRate) { mFrameRate = frameRate; mMask |= FRAME_RATE; return this; }
+
+    public boolean isEmpty() { return mMask == 0; }
+
+    boolean has(int property) { return (mMask & property) != 0; }
+
+    // copies the properties set in other, they win over the ones set here
+    void putAll(FigureProperties other) {
+        int mask = other.mMask;
+        if ((mask & SPEED) != 0) mSpeed = other.mSpeed;
+        if ((mask & LINE_COLOR) != 0) mLineColor = other.mLineColor;
+        if ((mask & LINE_WIDTH) != 0) mLineWidth = other.mLineWidth;
+        if ((mask & DOT_FIGURE) != 0) mDotFigure = other.mDotFigure;
+        if ((mask & DOT_WIDTH) != 0) mDotWidth = other.mDotWidth;
+        if ((mask & DOT_COLOR) != 0) mDotColor = other.mDotColor;
+        if ((mask & VERTEX_COUNT) != 0) mVertexCount = other.mVertexCount;
+        if ((mask & EDGE_TOPOLOGY) != 0) mEdgeTopology = other.mEdgeTopology;
+        if ((mask & EDGE_BUDGET) != 0) mEdgeBudget = other.mEdgeBudget;
+        if ((mask & FRAME_RATE) != 0) mFrameRate = other.mFrameRate;
+        mMask |= mask;
+    }
+}
@@ -0,0 +1,127 @@
+package com.stang.customview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import java.util.Arrays;
+
+/**
+ * The lines of one animation cycle as alpha masks, one per frame time, tinted with the line color when drawn.
+ * Only the lines are baked, they are what grows with the vertex count; dots and center figure stay live,
+ * so the masks carry no color and views that differ only in colors or dot figure share them.
+ * Every frame is cropped to the bounds of its lines and rendered one at a time outside the draw pass,
+ * see renderNextFrame, a view draws the lines live until the frame it shows is rendered.
+ */
+
+public class FrameAtlas {
+
+    public interface Renderer {
+        /**
+         * Writes the pixel bounds of the lines at the given time into out: left, top, right, bottom.
+         */
+        void getFrameBounds(float time, int[] out);
+
+        /**
+         * Draws the lines as they look at the given time, in view coordinates.
+         */
+        void renderFrame(Canvas canvas, float time);
+    }
+
+    /**
+     * Everything that changes how a frame looks, compared by value.
+     * The source, if any, is compared by identity.
+     */
+    public static class Key {
+        private final Object mSource;
+        private final long[] mValues;
+
+        public Key(Object source, long... values) {
+            mSource = source;
+            mValues = values;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return mSource == other.mSource && Arrays.equals(mValues, other.mValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(mSource) * 31 + Arrays.hashCode(mValues);
+        }
+    }
+
+    private final float[] mTimes;
+    // left, top, right, bottom of every frame
+    private final int[] mBounds;
+    private final Bitmap[] mFrames;
+    private int mRenderedCount = 0;
+
+
+    /**
+     * Only measures the frames, nothing is rendered yet.
+     * The renderer is not kept: the shared atlas must not hold on to the view that created it.
+     */
+    FrameAtlas(float[] times, Renderer renderer) {
+        mTimes = times;
+        mBounds = new int[times.length * 4];
+        mFrames = new Bitmap[times.length];
+        int[] bounds = new int[4];
+        for (int i = 0; i < times.length; i++) {
+            renderer.getFrameBounds(times[i], bounds);
+            mBounds[i * 4] = bounds[0];
+            mBounds[i * 4 + 1] = bounds[1];
+            // at least one pixel, e.g. all lines collapsed into a point
+            mBounds[i * 4 + 2] = Math.max(bounds[2], bounds[0] + 1);
+            mBounds[i * 4 + 3] = Math.max(bounds[3], bounds[1] + 1);
+        }
+    }
+
+    public int getFrameCount() { return mFrames.length; }
+
+    public int getFrameLeft(int index) { return mBounds[index * 4]; }
+
+    public int getFrameTop(int index) { return mBounds[index * 4 + 1]; }
+
+    public int getFrameRight(int index) { return mBounds[index * 4 + 2]; }
+
+    public int getFrameBottom(int index) { return mBounds[index * 4 + 3]; }
+
+    /**
+     * The mask of a frame, null until renderNextFrame got to it.
+     */
+    public Bitmap getFrame(int index) { return mFrames[index]; }
+
+    /**
+     * Renders the first frame that is not rendered yet with the given renderer.
+     * Any renderer of a view with the same key draws the same lines.
+     * @return false once every frame is rendered
+     */
+    public boolean renderNextFrame(Renderer renderer) {
+        if (mRenderedCount >= mFrames.length) return false;
+
+        int index = mRenderedCount;
+        int left = mBounds[index * 4];
+        int top = mBounds[index * 4 + 1];
+        Bitmap frame = Bitmap.createBitmap(mBounds[index * 4 + 2] - left, mBounds[index * 4 + 3] - top, Bitmap.Config.ALPHA_8);
+        Canvas canvas = new Canvas(frame);
+        canvas.translate(-left, -top);
+        renderer.renderFrame(canvas, mTimes[index]);
+        mFrames[index] = frame;
+        mRenderedCount++;
+        return mRenderedCount < mFrames.length;
+    }
+
+    /**
+     * Bytes of all frames once rendered, known up front so the cache can account for them.
+     */
+    public int getByteCount() {
+        int bytes = 0;
+        for (int i = 0; i < mFrames.length; i++) {
+            bytes += (mBounds[i * 4 + 2] - mBounds[i * 4]) * (mBounds[i * 4 + 3] - mBounds[i * 4 + 1]);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,80 @@
+package com.stang.customview;
+
+import android.util.LruCache;
+
+/**
+ * Process wide cache of baked frame atlases, one per view configuration.
+ * Least recently used atlases are evicted once the byte budget is exceeded, counting the frames not rendered yet,
+ * a configuration whose atlas alone would not fit is not baked at all and the view renders live.
+ * Views keep using an evicted atlas until their configuration changes.
+ * Must be used from the main thread only.
+ */
+
+public class FrameAtlasCache {
+    public static final int DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+    public static final int DEFAULT_FRAME_RATE = 15;
+
+    private static FrameAtlasCache sInstance;
+
+    private final LruCache<FrameAtlas.Key, FrameAtlas> mCache;
+    private int mFrameRate = DEFAULT_FRAME_RATE;
+
+
+    public static FrameAtlasCache getInstance() {
+        if (sInstance == null) {
+            // never take more than 1/8 of the heap
+            int maxBytes = (int) Math.min(DEFAULT_MAX_BYTES, Runtime.getRuntime().maxMemory() / 8);
+            sInstance = new FrameAtlasCache(maxBytes);
+        }
+        return sInstance;
+    }
+
+    FrameAtlasCache(int maxBytes) {
+        mCache = new LruCache<FrameAtlas.Key, FrameAtlas>(maxBytes) {
+            @Override
+            protected int sizeOf(FrameAtlas.Key key, FrameAtlas value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+
+    /**
+     * Returns the atlas of a configuration, measuring a new one with the renderer on a miss.
+     * @param times cycle time of every frame, in milliseconds
+     * @return null if the atlas would exceed the byte budget
+     */
+    public FrameAtlas obtain(FrameAtlas.Key key, float[] times, FrameAtlas.Renderer renderer) {
+        FrameAtlas atlas = mCache.get(key);
+        if (atlas != null) return atlas;
+
+        if (times.length == 0) return null;
+        atlas = new FrameAtlas(times, renderer);
+        if (atlas.getByteCount() > mCache.maxSize()) return null;
+        mCache.put(key, atlas);
+        return atlas;
+    }
+
+    /**
+     * Frames per second of newly baked atlases, existing ones are dropped.
+     */
+    public void setFrameRate(int frameRate) {
+        if (frameRate == mFrameRate) return;
+        mFrameRate = Math.max(1, frameRate);
+        mCache.evictAll();
+    }
+
+    public int getFrameRate() { return mFrameRate; }
+
+    public int getHitCount() { return mCache.hitCount(); }
+
+    public int getMissCount() { return mCache.missCount(); }
+
+    public int getEvictionCount() { return mCache.evictionCount(); }
+
+    public int getByteCount() { return mCache.size(); }
+
+    public int getMaxByteCount() { return mCache.maxSize(); }
+
+    public void clear() { mCache.evictAll(); }
+}
@@ -0,0 +1,126 @@
+package com.stang.customview;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.WindowManager;
+
+import com.stang.customview.core.Clock;
+
+/**
+ * Vsync aligned frame source for the animated views.
+ * Delivers one callback per display frame while started and nothing at all after stop().
+ * Uses Choreographer on API 16+ and falls back to a ~60 fps Handler loop on older devices, timed by the given Clock.
+ * Callbacks arrive on the thread that created the clock, which needs a Looper.
+ */
+
+public class FrameClock {
+    public static final long FALLBACK_FRAME_DELAY = 16;
+    public static final long DEFAULT_VSYNC_INTERVAL_NANOS = 16666667;
+
+    public interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+
+    private final FrameCallback mCallback;
+    private final FrameSource mSource;
+    private boolean isRunning = false;
+
+
+    public FrameClock(FrameCallback callback) {
+        this(callback, Clock.SYSTEM);
+    }
+
+    public FrameClock(FrameCallback callback, Clock clock) {
+        mCallback = callback;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mSource = new ChoreographerSource(this);
+        } else {
+            mSource = new HandlerSource(this, clock);
+        }
+    }
+
+    /**
+     * Frame interval of the default display, 60 Hz if it does not tell.
+     */
+    public static long getVsyncIntervalNanos(Context context) {
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        Display display = windowManager != null ? windowManager.getDefaultDisplay() : null;
+        float refreshRate = display != null ? display.getRefreshRate() : 0;
+        return refreshRate >= 1 ? (long) (1000000000L / refreshRate) : DEFAULT_VSYNC_INTERVAL_NANOS;
+    }
+
+    public void start() {
+        if (isRunning) return;
+        isRunning = true;
+        mSource.postFrame();
+    }
+
+    public void stop() {
+        if (!isRunning) return;
+        isRunning = false;
+        mSource.removeFrame();
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        if (!isRunning) return;
+        mCallback.doFrame(frameTimeNanos);
+        // the callback may have stopped the clock
+        if (isRunning) {
+            mSource.postFrame();
+        }
+    }
+
+
+    private interface FrameSource {
+        void postFrame();
+        void removeFrame();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class ChoreographerSource implements FrameSource, Choreographer.FrameCallback {
+        private final FrameClock mClock;
+        private final Choreographer mChoreographer = Choreographer.getInstance();
+
+        ChoreographerSource(FrameClock clock) { mClock = clock; }
+
+        @Override
+        public void postFrame() { mChoreographer.postFrameCallback(this); }
+
+        @Override
+        public void removeFrame() { mChoreographer.removeFrameCallback(this); }
+
+        @Override
+        public void doFrame(long frameTimeNanos) { mClock.onFrame(frameTimeNanos); }
+    }
+
+    private static class HandlerSource implements FrameSource, Runnable {
+        private final FrameClock mClock;
+        // the thread that created the clock, e.g. a render thread, or the main thread
+        private final Handler mHandler = new Handler(Looper.myLooper() != null ? Looper.myLooper() : Looper.getMainLooper());
+
+        private final Clock mTime;
+
+        HandlerSource(FrameClock clock, Clock time) {
+            mClock = clock;
+            mTime = time;
+        }
+
+        @Override
+        public void postFrame() { mHandler.postDelayed(this, FALLBACK_FRAME_DELAY); }
+
+        @Override
+        public void removeFrame() { mHandler.removeCallbacks(this); }
+
+        @Override
+        public void run() { mClock.onFrame(mTime.nanoTime()); }
+    }
+}
@@ -2,14 +2,29 @@ package com.stang.customview;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.Trace;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.View;
 
+import com.stang.customview.core.DrawList;
+import com.stang.customview.core.FrameLimiter;
+import com.stang.customview.core.FrameMetrics;
+import com.stang.customview.core.Kinematics;
+import com.stang.customview.core.PendingSlot;
+import com.stang.customview.core.PingPongTimeline;
+import com.stang.customview.core.Polygon;
+
 import static java.lang.Math.abs;
 
 
@@ -29,16 +44,82 @@ public class MyView extends View {
     public static final int FIGURE_CIRCLE= 2;
     public static final int FIGURE_IMAGE = 3;
 
+    public static final int EDGES_COMPLETE = DrawList.TOPOLOGY_COMPLETE;
+    public static final int EDGES_RING = DrawList.TOPOLOGY_RING;
+    public static final int EDGES_STAR = DrawList.TOPOLOGY_STAR;
+
+    public static final int FRAME_RATE_AUTO = AnimationTicker.FRAME_RATE_AUTO;
+    public static final int FRAME_RATE_VSYNC = AnimationTicker.FRAME_RATE_VSYNC;
+
+    private static final String TRACE_FRAME = "MyView.onFrame";
+    private static final String TRACE_DRAW = "MyView.onDraw";
+
     public int TIMELINE_MIN = -150;
     public int TIMELINE_MAX = 200;
+    // timeline units a corner needs to travel its path and the lag between corners
+    public static final int CORNER_DURATION = 100;
+    public static final int CORNER_LAG = 30;
+
+    // the timeline moves 0.03 units per TICK_INTERVAL at speed 1, from the elapsed frame time
+    public static final long TICK_INTERVAL = 30;
+    public static final float TIMELINE_STEP = 0.03f;
 
-    private int mReverseTimeline = 1;
     private boolean isRunning = false;
+    private boolean isAttached = false;
+    // set by setProgress, applied once in the next onDraw
+    private float mPendingProgress = 0;
+    private boolean isProgressPending = false;
+    private final AnimationTicker.Client mTickerClient = new AnimationTicker.Client() {
+        @Override
+        public void onTick(long frameTimeNanos) {
+            int frameRate = AnimationTicker.getInstance().resolveFrameRate(mFrameRate);
+            mFrameLimiter.setMaxFps(frameRate);
+            if (!mFrameLimiter.accept(frameTimeNanos)) return;
+
+            if (mMetrics != null) {
+                mMetrics.onFrame(frameTimeNanos, frameRate > 0 ? 1000000000L / frameRate : mVsyncIntervalNanos);
+            }
+            beginTrace(TRACE_FRAME);
+            onFrame(frameTimeNanos);
+            endTrace();
+        }
+    };
+    private final FrameLimiter mFrameLimiter = new FrameLimiter();
+    private int mFrameRate = FRAME_RATE_AUTO;
+    private long mVsyncIntervalNanos = FrameClock.DEFAULT_VSYNC_INTERVAL_NANOS;
+
+    // written by any thread through postProperties, applied on the main thread
+    private final PendingSlot<FigureProperties> mPendingProperties = new PendingSlot<>(FigureProperties.MERGER);
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mApplyPendingProperties = new Runnable() {
+        @Override
+        public void run() {
+            FigureProperties properties = mPendingProperties.take();
+            if (properties != null) applyProperties(properties);
+        }
+    };
+    private final FigureProperties.Target mEditTarget = new FigureProperties.Target() {
+        @Override
+        public void applyProperties(FigureProperties properties) {
+            MyView.this.applyProperties(properties);
+        }
+    };
+
+    // null while metrics are off
+    private FrameMetrics mMetrics;
+    private boolean isTraceEnabled = false;
 
     Paint mLinePaint;
     Paint mDotPaint;
     Paint mCenterPaint;
-    Dot[] mCorners;
+    Paint mSpritePaint;
+    // FIGURE_IMAGE rasterized from mCustomImage, see SpriteCache
+    private Bitmap mDotSprite;
+    private Bitmap mCenterSprite;
+    Kinematics mCorners = new Kinematics(4, 3);
+    private final DrawList mDrawList = new DrawList();
+    // alpha of the center figure on the last frame, -1 while it is hidden
+    private int mLastCenterAlpha = -1;
 
     private int mHeight = 0;
     private int mWidth = 0;
@@ -51,9 +132,12 @@ public class MyView extends View {
     private int mDotWidth = 20;
     private int mDotColor = Color.BLUE;
     private int mRadius = 20;
-    private float mTimeline = TIMELINE_MIN;
+    private final PingPongTimeline mTimeline = new PingPongTimeline(TIMELINE_MIN, TIMELINE_MAX, getTimelineRate(1));
     private long mRepeatedCycles = 0;
     private Drawable mCustomImage;
+    private int mVertexCount = 4;
+    private int mEdgeTopology = EDGES_COMPLETE;
+    private int mEdgeBudget = DrawList.DEFAULT_EDGE_BUDGET;
 
     OnAnimationEventListener mAnimationListener = null;
 
@@ -63,6 +147,7 @@ public class MyView extends View {
 
     public interface OnAnimationEventListener {
         void onAnimationStarted();
+        // MyView: on stopAnim() too; RectAnimationView: only when the last repeat ended, its stopAnim() is a pause
         void onAnimationStopped();
         void onAnimationCollapsed();
         void onAnimationExploded();
@@ -92,23 +177,76 @@ public class MyView extends View {
         }
     }
 
+    // turns around at the ends of the timeline while cycles are left
+    private final PingPongTimeline.Listener mTimelineListener = new PingPongTimeline.Listener() {
+        @Override
+        public boolean onMaxReached() {
+            onAnimationCollapsed();
+            return continueCycle();
+        }
+
+        @Override
+        public boolean onMinReached() {
+            onAnimationExploded();
+            return continueCycle();
+        }
+    };
+
+    private boolean continueCycle() {
+        if(mDirection == DIRECTION_ROUND && (mRepeat==0 || mRepeatedCycles < mRepeat)){
+            mRepeatedCycles++;
+            if (mMetrics != null) mMetrics.onCycle();
+            return true;
+        }
+        stopAnim();
+        return false;
+    }
+
     public void startAnim() {
+        // a scrub that was not drawn yet must not land on the restarted timeline
+        isProgressPending = false;
         initTimeline();
         mRepeatedCycles = 0;
-        removeCallbacks(animator);
-        post(animator);
         isRunning = true;
+        mTimeline.start();
+        updateFigure();
+        invalidate();
+        updateTicking();
         onAnimationStarted();
     }
 
     public void stopAnim() {
         isRunning = false;
-        removeCallbacks(animator);
+        mTimeline.stop();
+        updateTicking();
         onAnimationStopped();
     }
 
 
-    public void setSpeed(float speed) { mSpeed = speed; setPaintProperties(); invalidate(); }
+    /**
+     * Shows the figure at a point of the timeline, 0 is TIMELINE_MIN and 1 TIMELINE_MAX, and stops the animation.
+     * Any number of calls between two frames cost one invalidate and are applied once in the next onDraw.
+     */
+    public void setProgress(float progress) {
+        if (isRunning) stopAnim();
+        mPendingProgress = Math.max(0, Math.min(1, progress));
+        if (!isProgressPending) {
+            isProgressPending = true;
+            invalidate();
+        }
+    }
+
+    public float getProgress() {
+        if (isProgressPending) return mPendingProgress;
+        return (mTimeline.getValue() - TIMELINE_MIN) / (TIMELINE_MAX - TIMELINE_MIN);
+    }
+
+    public void setSpeed(float speed) {
+        mSpeed = speed;
+        mTimeline.setRate(getTimelineRate(mSpeed));
+        setPaintProperties();
+        invalidate();
+    }
 
     public void setLineColor(int lineColor) { mLineColor = lineColor; setPaintProperties(); invalidate(); }
 
@@ -122,6 +260,109 @@ public class MyView extends View {
 
     public void setCustomImage(Drawable customImage) { mCustomImage = customImage; setPaintProperties(); invalidate(); }
 
+    public void setVertexCount(int vertexCount) {
+        mVertexCount = Math.max(2, vertexCount);
+        mCorners.setCount(mVertexCount);
+        updateTopology();
+        initGeometry();
+        invalidate();
+    }
+
+    public void setEdgeTopology(int edgeTopology) { mEdgeTopology = edgeTopology; updateTopology(); invalidate(); }
+
+    /**
+     * Maximum number of edges drawn, a complete graph over the budget is drawn as a ring.
+     */
+    public void setEdgeBudget(int edgeBudget) { mEdgeBudget = edgeBudget; updateTopology(); invalidate(); }
+
+    /**
+     * FRAME_RATE_VSYNC, a cap in frames per second (e.g. 30, 20, 15) or FRAME_RATE_AUTO,
+     * which caps only in power save mode or with many animating views, see AnimationTicker.
+     */
+    public void setFrameRate(int frameRate) { mFrameRate = frameRate; }
+
+    public int getFrameRate() { return mFrameRate; }
+
+    /**
+     * Starts a batch of changes, e.g. edit().setSpeed(2).setDotColor(color).setVertexCount(8).apply(),
+     * which rebuilds geometry and timing once and invalidates once instead of once per setter.
+     */
+    public FigureProperties edit() {
+        return new FigureProperties(mEditTarget);
+    }
+
+    /**
+     * Can be called from any thread, the properties must not be changed afterwards.
+     * Updates posted before the main thread gets to them are merged and applied in a single pass,
+     * the main looper gets one message per batch however many updates come in.
+     */
+    public void postProperties(FigureProperties properties) {
+        if (mPendingProperties.offer(properties)) {
+            mMainHandler.post(mApplyPendingProperties);
+        }
+    }
+
+    // applies everything that was set in one pass: topology and geometry once, paints once, one invalidate
+    void applyProperties(FigureProperties properties) {
+        if (properties.has(FigureProperties.SPEED)) {
+            mSpeed = properties.mSpeed;
+            mTimeline.setRate(getTimelineRate(mSpeed));
+        }
+        if (properties.has(FigureProperties.LINE_COLOR)) mLineColor = properties.mLineColor;
+        if (properties.has(FigureProperties.LINE_WIDTH)) mLineWidth = properties.mLineWidth;
+        if (properties.has(FigureProperties.DOT_FIGURE)) mDotFigure = properties.mDotFigure;
+        if (properties.has(FigureProperties.DOT_WIDTH)) mDotWidth = properties.mDotWidth;
+        if (properties.has(FigureProperties.DOT_COLOR)) mDotColor = properties.mDotColor;
+        if (properties.has(FigureProperties.VERTEX_COUNT)) {
+            mVertexCount = Math.max(2, properties.mVertexCount);
+            mCorners.setCount(mVertexCount);
+        }
+        if (properties.has(FigureProperties.EDGE_TOPOLOGY)) mEdgeTopology = properties.mEdgeTopology;
+        if (properties.has(FigureProperties.EDGE_BUDGET)) mEdgeBudget = properties.mEdgeBudget;
+        if (properties.has(FigureProperties.FRAME_RATE)) mFrameRate = properties.mFrameRate;
+
+        if (properties.has(FigureProperties.VERTEX_COUNT | FigureProperties.EDGE_TOPOLOGY | FigureProperties.EDGE_BUDGET)) {
+            updateTopology();
+        }
+        if (properties.has(FigureProperties.VERTEX_COUNT)) {
+            initGeometry();
+        }
+        setPaintProperties();
+        invalidate();
+    }
+
+    /**
+     * Records draw time, tick to draw latency, missed frames and cycles, see getMetrics().
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (!enabled) {
+            mMetrics = null;
+        } else if (mMetrics == null) {
+            mMetrics = new FrameMetrics();
+        }
+    }
+
+    public boolean isMetricsEnabled() { return mMetrics != null; }
+
+    /**
+     * Copies the metrics into out, or a new snapshot if out is null.
+     * @return null while metrics are off
+     */
+    public FrameMetrics.Snapshot getMetrics(FrameMetrics.Snapshot out) {
+        return mMetrics != null ? mMetrics.snapshot(out) : null;
+    }
+
+    public void resetMetrics() {
+        if (mMetrics != null) mMetrics.reset();
+    }
+
+    /**
+     * Wraps every frame and draw in an android.os.Trace section, API 18+.
+     */
+    public void setTraceEnabled(boolean enabled) { isTraceEnabled = enabled; }
+
+    public boolean isTraceEnabled() { return isTraceEnabled; }
+
     public float getSpeed() {
         return mSpeed;
     }
@@ -150,6 +391,18 @@ public class MyView extends View {
         return mCustomImage;
     }
 
+    public int getVertexCount() {
+        return mVertexCount;
+    }
+
+    public int getEdgeTopology() {
+        return mEdgeTopology;
+    }
+
+    public int getEdgeBudget() {
+        return mEdgeBudget;
+    }
+
     public boolean isRunning() {
         return isRunning;
     }
@@ -179,15 +432,23 @@ public class MyView extends View {
             mDotFigure = a.getInt(R.styleable.MyView_dot_figure, FIGURE_CIRCLE);
             mDotWidth = a.getDimensionPixelSize(R.styleable.MyView_dot_width, 10);
             mLineWidth = a.getDimensionPixelSize(R.styleable.MyView_line_width, 1);
+            mVertexCount = Math.max(2, a.getInt(R.styleable.MyView_vertex_count, 4));
+            mEdgeTopology = a.getInt(R.styleable.MyView_edge_topology, EDGES_COMPLETE);
         } finally {
             a.recycle();
         }
+        mTimeline.setRate(getTimelineRate(mSpeed));
+        mTimeline.setListener(mTimelineListener);
 
         mLinePaint = new Paint();
         mDotPaint = new Paint();
         mCenterPaint = new Paint();
+        mSpritePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
         mCustomImage = context.getResources().getDrawable(R.drawable.ok_);
 
+        mCorners.setCount(mVertexCount);
+        updateTopology();
+        initGeometry();
         setPaintProperties();
         initTimeline();
     }
@@ -196,20 +457,36 @@ public class MyView extends View {
     private void setPaintProperties(){
         mCenterPaint.setColor(mDotColor);
         mDotPaint.setColor(mDotColor);
+        // dots are drawn with drawPoints: a square or round cap the size of the dot
+        mDotPaint.setStrokeCap(mDotFigure == FIGURE_RECTANGLE ? Paint.Cap.SQUARE : Paint.Cap.ROUND);
+        mDotPaint.setStrokeWidth(mRadius * 2);
         mLinePaint.setColor(mLineColor);
         mLinePaint.setStrokeWidth(mLineWidth);
+
+        if (mDotFigure == FIGURE_IMAGE) {
+            mDotSprite = SpriteCache.getInstance().get(mCustomImage, mRadius * 2);
+            mCenterSprite = SpriteCache.getInstance().get(mCustomImage, mRadius * 4);
+        } else {
+            mDotSprite = null;
+            mCenterSprite = null;
+        }
+    }
+
+    // timeline units per millisecond
+    private static float getTimelineRate(float speed) {
+        return TIMELINE_STEP / speed / TICK_INTERVAL;
     }
 
     private void initTimeline(){
         switch (mDirection){
             case DIRECTION_FORWARD:
             case DIRECTION_ROUND:
-                mTimeline = TIMELINE_MIN;
-                mReverseTimeline = 1;
+                mTimeline.setValue(TIMELINE_MIN);
+                mTimeline.setDirection(PingPongTimeline.DIRECTION_UP);
                 break;
             case DIRECTION_BACKWARD:
-                mTimeline = TIMELINE_MAX;
-                mReverseTimeline = -1;
+                mTimeline.setValue(TIMELINE_MAX);
+                mTimeline.setDirection(PingPongTimeline.DIRECTION_DOWN);
                 break;
         }
     }
@@ -221,194 +498,287 @@ public class MyView extends View {
         mHeight = h;
         mWidth = w;
 
-        int centerX = mWidth /2;
-        int centerY = mHeight /2;
         mRadius = mDotWidth;
 
-        Log.d(TAG, "onSizeChanged: " + mHeight + ":" + mWidth + "   center: " + centerX + ":" + centerY + "   mRadius: " + mRadius);
+        Log.d(TAG, "onSizeChanged: " + mHeight + ":" + mWidth + "   mRadius: " + mRadius);
 
-        mCorners = new Dot[4];
-        mCorners[0] = new Dot(mRadius, mRadius, centerX, centerY, false);
-        mCorners[1] = new Dot(mWidth - mRadius, mRadius,centerX, centerY, true);
-        mCorners[2] = new Dot(mWidth - mRadius, mHeight - mRadius, centerX, centerY, false);
-        mCorners[3] = new Dot(mRadius, mHeight - mRadius, centerX, centerY, true);
+        // the geometry is normalized, a new size only changes how it is mapped to pixels
+        updateTransform();
+        setPaintProperties();
     }
 
+    // the unit square maps onto the view inset by the dot radius
+    private void updateTransform() {
+        mDrawList.setTransform(mWidth - 2 * mRadius, mHeight - 2 * mRadius, mRadius, mRadius);
+        updateFigure();
+    }
 
     @Override
-    protected void onDraw(Canvas canvas) {
-
-        mCorners[0].calcPosition(mTimeline);
-        mCorners[3].calcPosition(mTimeline - 30);
-        mCorners[2].calcPosition(mTimeline - 60);
-        mCorners[1].calcPosition(mTimeline - 90);
+    protected Parcelable onSaveInstanceState() {
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        state.mTimeline = isProgressPending
+                ? TIMELINE_MIN + mPendingProgress * (TIMELINE_MAX - TIMELINE_MIN) : mTimeline.getValue();
+        state.mTimelineDirection = mTimeline.getDirection();
+        state.mRepeatedCycles = mRepeatedCycles;
+        state.isRunning = isRunning;
+        return state;
+    }
 
-        drawLines(canvas);
+    // continues where the animation was before, without events and without starting over
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState saved = (SavedState) state;
+        super.onRestoreInstanceState(saved.getSuperState());
+
+        isProgressPending = false;
+        mTimeline.setValue(saved.mTimeline);
+        mTimeline.setDirection(saved.mTimelineDirection);
+        mRepeatedCycles = saved.mRepeatedCycles;
+        isRunning = saved.isRunning;
+        if (isRunning) {
+            mTimeline.start();
+        } else {
+            mTimeline.stop();
+        }
 
-        drawDots(canvas);
+        updateFigure();
+        mLastCenterAlpha = getCenterAlpha();
+        invalidate();
+        updateTicking();
     }
 
+    static class SavedState extends BaseSavedState {
+        float mTimeline;
+        int mTimelineDirection;
+        long mRepeatedCycles;
+        boolean isRunning;
 
-    private void drawDots(Canvas canvas) {
-        switch (mDotFigure){
-            case FIGURE_NONE: //none
-                break;
-
-            case FIGURE_RECTANGLE:
-                if(mTimeline < -30){
-                    mCenterPaint.setAlpha(abs(((int) mTimeline %25))*10);
-                    canvas.drawRect(mHeight /2- mRadius *2, mWidth /2- mRadius *2, mHeight /2+ mRadius *2, mWidth /2+ mRadius *2, mCenterPaint);
-                }
-                for (int i = 0; i < mCorners.length; i++) {
-                    canvas.drawRect(mCorners[i].getX()- mRadius, mCorners[i].getY()- mRadius, mCorners[i].getX()+ mRadius, mCorners[i].getY()+ mRadius, mDotPaint);
-                }
-                break;
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
 
-            case FIGURE_CIRCLE:
-                if(mTimeline < -30){
-                    mCenterPaint.setAlpha(abs(((int) mTimeline %25))*10);
-                    canvas.drawCircle(mHeight /2, mWidth /2, mRadius *2, mCenterPaint);
-                }
-                for (int i = 0; i < mCorners.length; i++) {
-                    canvas.drawCircle(mCorners[i].getX(), mCorners[i].getY(), mRadius, mDotPaint);
-                }
-                break;
+        private SavedState(Parcel in) {
+            super(in);
+            mTimeline = in.readFloat();
+            mTimelineDirection = in.readInt();
+            mRepeatedCycles = in.readLong();
+            isRunning = in.readInt() != 0;
+        }
 
-            case FIGURE_IMAGE:
-                if(mTimeline < -30){
-                    mCustomImage.setAlpha(abs(((int) mTimeline %25))*10);
-                    mCustomImage.setBounds((int)(mHeight /2- mRadius *2), (int)(mWidth /2- mRadius *2),
-                            (int)(mHeight /2+ mRadius *2), (int)(mWidth /2+ mRadius *2));
-                    mCustomImage.draw(canvas);
-                }
-                for (int i = 0; i < mCorners.length; i++) {
-                    mCustomImage.setAlpha(255);
-                    mCustomImage.setBounds(mCorners[i].getX()- mRadius, mCorners[i].getY()- mRadius,
-                            mCorners[i].getX()+ mRadius, mCorners[i].getY()+ mRadius);
-                    mCustomImage.draw(canvas);
-                }
-                break;
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeFloat(mTimeline);
+            out.writeInt(mTimelineDirection);
+            out.writeLong(mRepeatedCycles);
+            out.writeInt(isRunning ? 1 : 0);
         }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
     }
 
-    private void drawLines(Canvas canvas) {
-        canvas.drawLine(mCorners[0].getX(), mCorners[0].getY(), mCorners[1].getX(), mCorners[1].getY(), mLinePaint);
-        canvas.drawLine(mCorners[0].getX(), mCorners[0].getY(), mCorners[2].getX(), mCorners[2].getY(), mLinePaint);
-        canvas.drawLine(mCorners[0].getX(), mCorners[0].getY(), mCorners[3].getX(), mCorners[3].getY(), mLinePaint);
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        isAttached = true;
+        AnimationTicker.getInstance().watchPowerSaveMode(getContext());
+        mVsyncIntervalNanos = FrameClock.getVsyncIntervalNanos(getContext());
+        updateTicking();
+    }
 
-        canvas.drawLine(mCorners[1].getX(), mCorners[1].getY(), mCorners[2].getX(), mCorners[2].getY(), mLinePaint);
-        canvas.drawLine(mCorners[1].getX(), mCorners[1].getY(), mCorners[3].getX(), mCorners[3].getY(), mLinePaint);
+    @Override
+    protected void onDetachedFromWindow() {
+        isAttached = false;
+        updateTicking();
+        super.onDetachedFromWindow();
+    }
 
-        canvas.drawLine(mCorners[2].getX(), mCorners[2].getY(), mCorners[3].getX(), mCorners[3].getY(), mLinePaint);
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateTicking();
     }
 
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateTicking();
+    }
 
-    private Runnable animator = new Runnable() {
-        @Override
-        public void run() {
-            if (mTimeline > TIMELINE_MAX) {
-                onAnimationCollapsed();
-                mReverseTimeline = -1;
-                if(mDirection == DIRECTION_ROUND && (mRepeat==0 || mRepeatedCycles < mRepeat)){
-                    mRepeatedCycles++;
-                } else {
-                    stopAnim();
-                };
-            } else
-            if (mTimeline < TIMELINE_MIN) {
-                onAnimationExploded();
-                mReverseTimeline = 1;
-                if(mDirection == DIRECTION_ROUND && (mRepeat==0 || mRepeatedCycles < mRepeat)){
-                    mRepeatedCycles++;
-                } else {
-                    stopAnim();
-                };
-            }
+    // ticks only while running and actually on screen, the animation time stands still in between
+    private void updateTicking() {
+        AnimationTicker ticker = AnimationTicker.getInstance();
+        boolean tick = isRunning && isAttached && getWindowVisibility() == VISIBLE && isShown();
+        if (tick && !ticker.isRegistered(mTickerClient)) {
+            mFrameLimiter.reset();
+            // the first frame after a pause must not count the time spent hidden
+            mTimeline.resume();
+            ticker.register(mTickerClient);
+        } else if (!tick) {
+            ticker.unregister(mTickerClient);
+            if (mMetrics != null) mMetrics.onPause();
+        }
+    }
 
-            float step = 0.03f / mSpeed;
-            mTimeline += (mReverseTimeline * step);
+    private void beginTrace(String section) {
+        if (isTraceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(section);
+        }
+    }
 
-            invalidate();
+    private void endTrace() {
+        if (isTraceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
 
-            if(isRunning) {
-                postDelayed(this, 30);
-            }
+    private void updateTopology() {
+        mDrawList.setTopology(mEdgeTopology, mCorners.getCount(), mEdgeBudget);
+        mDrawList.setHub(0.5f, 0.5f);
+        updateFigure();
+    }
 
+    // corners sit on the border clockwise from the top left one and all end in the center,
+    // in normalized coordinates: only the vertex count changes them, see updateTransform
+    private void initGeometry() {
+        int count = mCorners.getCount();
+        // the last corner starts CORNER_LAG * 3 after the first one, whatever the count
+        float lag = CORNER_LAG * 3f / Math.max(1, count - 1);
+
+        for (int i = 0; i < count; i++) {
+            Polygon.placeOnRectangle(mCorners, i, 0, Polygon.angle(i, count, 225, true), 0.5f, 0.5f, 0.5f, 0.5f);
+            setCorner(i, mCorners.getKeyframeX(i, 0), mCorners.getKeyframeY(i, 0), 0.5f, 0.5f, i % 2 == 1);
+            // corners start one after another counterclockwise: 0, n-1, ..., 1
+            mCorners.setDelay(i, ((count - i) % count) * lag);
         }
-    };
 
+        mDrawList.invalidate();
+        updateFigure();
+    }
 
+    // a corner goes along one side first and then along the other one, rotated corners start horizontally
+    private void setCorner(int index, float sx, float sy, float ex, float ey, boolean rotated) {
+        mCorners.setKeyframe(index, 0, sx, sy);
+        if (rotated) {
+            mCorners.setKeyframe(index, 1, ex, sy);
+        } else {
+            mCorners.setKeyframe(index, 1, sx, ey);
+        }
+        mCorners.setKeyframe(index, 2, ex, ey);
+    }
 
-    public class Dot {
-        private int currentX;
-        private int currentY;
 
-        private int startX;
-        private int endX;
-        private int startY;
-        private int endY;
+    // moves the corners to the current timeline, onDraw only draws the buffers
+    private void updateFigure() {
+        mCorners.evaluate(mTimeline.getValue(), CORNER_DURATION, false, Kinematics.INTERPOLATOR_LINEAR);
+        mDrawList.update(mCorners.getXs(), mCorners.getYs());
+    }
 
-        public boolean rotated = false;
+    private int getCenterAlpha() {
+        if (mDotFigure == FIGURE_NONE || mTimeline.getValue() >= -30) return -1;
+        return abs(((int) mTimeline.getValue() % 25)) * 10;
+    }
 
+    // invalidates the moved corners with their edges, before and after the move, and a changed center figure
+    private void invalidateFigure() {
+        mDrawList.resetDirtyBounds();
+        updateFigure();
+
+        int centerAlpha = getCenterAlpha();
+        if (centerAlpha != mLastCenterAlpha) {
+            mLastCenterAlpha = centerAlpha;
+            // drawn around (mHeight / 2, mWidth / 2), see drawDots
+            mDrawList.includeDirty(mHeight / 2 - mRadius * 2, mWidth / 2 - mRadius * 2);
+            mDrawList.includeDirty(mHeight / 2 + mRadius * 2, mWidth / 2 + mRadius * 2);
+        }
+        if (!mDrawList.hasDirtyBounds()) return;
 
-        public Dot(int sx, int sy, int ex, int ey, boolean rotated) {
-            this.startX = sx;
-            this.startY = sy;
-            this.endX = ex;
-            this.endY = ey;
+        // dots and line ends stick out of the positions, one more pixel for antialiasing
+        int pad = Math.max(mRadius, mLineWidth) + 1;
+        invalidate((int) Math.floor(mDrawList.getDirtyLeft()) - pad, (int) Math.floor(mDrawList.getDirtyTop()) - pad,
+                (int) Math.ceil(mDrawList.getDirtyRight()) + pad, (int) Math.ceil(mDrawList.getDirtyBottom()) + pad);
+    }
 
-            this.currentX = sx;
-            this.currentY = sy;
 
-            this.rotated = rotated;
+    @Override
+    protected void onDraw(Canvas canvas) {
+        long start = mMetrics != null ? AnimationTicker.getInstance().getClock().nanoTime() : 0;
+        beginTrace(TRACE_DRAW);
+
+        if (isProgressPending) {
+            isProgressPending = false;
+            mTimeline.setValue(TIMELINE_MIN + mPendingProgress * (TIMELINE_MAX - TIMELINE_MIN));
+            updateFigure();
+            mLastCenterAlpha = getCenterAlpha();
         }
 
+        drawLines(canvas);
 
-        public void calcPosition(float p) {
+        drawDots(canvas);
 
-            int percent = (int)p;
+        endTrace();
+        if (mMetrics != null) mMetrics.onDraw(start, AnimationTicker.getInstance().getClock().nanoTime());
+    }
 
-            if(p < 1 ) {
-                percent = 0;
-            } else if(p > 99) {
-                percent = 100;
-            }
 
-            if((percent >= 0) && (percent < 50)) {
-                if(rotated) {
-                    currentY = startY;
-                    currentX = (int)(startX + (double)(endX - startX) * ((double)percent / 100D * 2D));
-                } else {
-                    currentX = startX;
-                    currentY = (int)(startY + (double)(endY - startY) * ((double)percent / 100D * 2D));
-                };
-            } else if((percent >= 50) && (percent <= 100)) {
-                if(rotated) {
-                    currentX = endX;
-                    currentY = (int)(startY + (double)(endY - startY) * ((double)(percent - 50) / 100D * 2D));
-                } else {
-                    currentY = endY;
-                    currentX = (int)(startX + (double)(endX - startX) * ((double)(percent - 50) / 100D * 2D));
-                };
-            }
-
-        }
+    private void drawDots(Canvas canvas) {
+        switch (mDotFigure){
+            case FIGURE_NONE: //none
+                break;
 
-        public int getX() {
-            return currentX;
-        }
+            case FIGURE_RECTANGLE:
+                if(mTimeline.getValue() < -30){
+                    mCenterPaint.setAlpha(abs(((int) mTimeline.getValue() %25))*10);
+                    canvas.drawRect(mHeight /2- mRadius *2, mWidth /2- mRadius *2, mHeight /2+ mRadius *2, mWidth /2+ mRadius *2, mCenterPaint);
+                }
+                canvas.drawPoints(mDrawList.getPoints(), 0, mDrawList.getPointFloatCount(), mDotPaint);
+                break;
 
-        public int getY() {
-            return currentY;
-        }
+            case FIGURE_CIRCLE:
+                if(mTimeline.getValue() < -30){
+                    mCenterPaint.setAlpha(abs(((int) mTimeline.getValue() %25))*10);
+                    canvas.drawCircle(mHeight /2, mWidth /2, mRadius *2, mCenterPaint);
+                }
+                canvas.drawPoints(mDrawList.getPoints(), 0, mDrawList.getPointFloatCount(), mDotPaint);
+                break;
 
-        @Override
-        public String toString() {
-            return "start: " + startX + "," + startY + "; end: " + endX + "," + endY + "; current: " + currentX + "," + currentY;
+            case FIGURE_IMAGE:
+                if (mDotSprite == null) break;
+                if(mTimeline.getValue() < -30){
+                    mSpritePaint.setAlpha(abs(((int) mTimeline.getValue() %25))*10);
+                    canvas.drawBitmap(mCenterSprite, mHeight /2- mRadius *2, mWidth /2- mRadius *2, mSpritePaint);
+                }
+                mSpritePaint.setAlpha(255);
+                float[] points = mDrawList.getPoints();
+                for (int i = 0; i < mDrawList.getVertexCount(); i++) {
+                    canvas.drawBitmap(mDotSprite, (int) points[i * 2]- mRadius, (int) points[i * 2 + 1]- mRadius, mSpritePaint);
+                }
+                break;
         }
     }
 
+    private void drawLines(Canvas canvas) {
+        canvas.drawLines(mDrawList.getLines(), 0, mDrawList.getLineFloatCount(), mLinePaint);
+    }
 
-}
 
+    private void onFrame(long frameTimeNanos) {
+        mTimeline.update(frameTimeNanos);
+        invalidateFigure();
+    }
 
+}
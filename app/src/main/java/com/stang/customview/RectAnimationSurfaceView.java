@@ -0,0 +1,491 @@
+package com.stang.customview;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.AttributeSet;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+import android.view.View;
+
+import com.stang.customview.core.Clock;
+import com.stang.customview.core.CollapseAnimation;
+import com.stang.customview.core.DrawList;
+import com.stang.customview.core.FrameLimiter;
+import com.stang.customview.core.FrameState;
+import com.stang.customview.core.FrameStateBuffer;
+import com.stang.customview.core.Kinematics;
+import com.stang.customview.core.PendingSlot;
+
+/**
+ * RectAnimationView that ticks and draws on its own render thread into a SurfaceView,
+ * so it keeps animating while the main thread is blocked: the surface is composited by the system on its own,
+ * a TextureView would still need the main thread to redraw the hierarchy for every frame.
+ * The surface is translucent and placed above the window, views of the same window cannot overlap it.
+ * The animation is owned by the render thread: properties reach it through a lock free PendingSlot,
+ * start / stop, visibility and size through volatile fields, listener callbacks come back through the main looper.
+ * Takes the RectAnimationView attributes. FIGURE_IMAGE is drawn as circles, drawables are not thread safe,
+ * and FRAME_RATE_AUTO means vsync: the view is not one of the AnimationTicker clients.
+ * The simulation step publishes each frame into a FrameStateBuffer and the drawing step only reads from it.
+ */
+
+public class RectAnimationSurfaceView extends SurfaceView implements SurfaceHolder.Callback {
+    public static final String TAG = RectAnimationSurfaceView.class.getSimpleName();
+
+    public static final int FIGURE_NONE = RectAnimationView.FIGURE_NONE;
+    public static final int FIGURE_RECTANGLE = RectAnimationView.FIGURE_RECTANGLE;
+    public static final int FIGURE_CIRCLE = RectAnimationView.FIGURE_CIRCLE;
+    public static final int FIGURE_IMAGE = RectAnimationView.FIGURE_IMAGE;
+
+    // vertices a frame state holds before its arrays grow
+    private static final int FRAME_STATE_CAPACITY = 16;
+
+    // written on the main thread, read by the render thread
+    private volatile boolean isRunRequested = false;
+    private volatile boolean isVisible = true;
+    private volatile int mSurfaceWidth = 0;
+    private volatile int mSurfaceHeight = 0;
+    // written by the render thread
+    private volatile boolean isRunning = false;
+
+    private final PendingSlot<FigureProperties> mPendingProperties = new PendingSlot<>(FigureProperties.MERGER);
+    private int mRepeat = 0;
+
+    // everything applied so far and the animation of the last render thread, carried over to the next one;
+    // owned by the render thread while one runs, handed over to and from it by Thread.start() and join()
+    private final FigureProperties mAppliedProperties = new FigureProperties();
+    private boolean hasPlayState = false;
+    private boolean isPlayStarted = false;
+    private float mPlayTime = 0;
+    private long mRepeatedCycles = 0;
+
+    private RenderThread mRenderThread;
+    private volatile Handler mRenderHandler;
+    // posted from any thread, always syncs the render thread it runs on
+    private final Runnable mSync = new Runnable() {
+        @Override
+        public void run() {
+            ((RenderThread) Thread.currentThread()).sync();
+        }
+    };
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final FigureProperties.Target mEditTarget = new FigureProperties.Target() {
+        @Override
+        public void applyProperties(FigureProperties properties) {
+            postProperties(properties);
+        }
+    };
+
+    MyView.OnAnimationEventListener mAnimationListener = null;
+
+    // listener callbacks, posted by the render thread
+    private final Runnable mStartedEvent = new Runnable() {
+        @Override
+        public void run() {
+            if (mAnimationListener != null) mAnimationListener.onAnimationStarted();
+        }
+    };
+    private final Runnable mStoppedEvent = new Runnable() {
+        @Override
+        public void run() {
+            if (mAnimationListener != null) mAnimationListener.onAnimationStopped();
+        }
+    };
+    private final Runnable mCollapsedEvent = new Runnable() {
+        @Override
+        public void run() {
+            if (mAnimationListener != null) mAnimationListener.onAnimationCollapsed();
+        }
+    };
+    private final Runnable mExplodedEvent = new Runnable() {
+        @Override
+        public void run() {
+            if (mAnimationListener != null) mAnimationListener.onAnimationExploded();
+        }
+    };
+
+
+    public RectAnimationSurfaceView(Context context) {
+        super(context);
+        initSurface();
+    }
+
+    public RectAnimationSurfaceView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        initSurface();
+
+        TypedArray a = context.getTheme().obtainStyledAttributes(
+                attrs,
+                R.styleable.RectAnimationView,
+                0, 0
+        );
+
+        FigureProperties properties = new FigureProperties();
+        try {
+            properties.setLineColor(a.getColor(R.styleable.RectAnimationView_rav_line_color, Color.BLACK));
+            properties.setDotColor(a.getColor(R.styleable.RectAnimationView_rav_dot_color, Color.BLACK));
+            properties.setSpeed(a.getFloat(R.styleable.RectAnimationView_rav_speed_animation, 1f));
+            properties.setDotFigure(a.getInt(R.styleable.RectAnimationView_rav_dot_figure, FIGURE_CIRCLE));
+            properties.setDotWidth(a.getDimensionPixelSize(R.styleable.RectAnimationView_rav_dot_width, 10));
+            properties.setLineWidth(a.getDimensionPixelSize(R.styleable.RectAnimationView_rav_line_width, 1));
+            properties.setVertexCount(a.getInt(R.styleable.RectAnimationView_rav_vertex_count, 4));
+            properties.setEdgeTopology(a.getInt(R.styleable.RectAnimationView_rav_edge_topology, RectAnimationView.EDGES_COMPLETE));
+            mRepeat = a.getInt(R.styleable.RectAnimationView_rav_repeat_counts, 0);
+        } finally {
+            a.recycle();
+        }
+        postProperties(properties);
+        // like RectAnimationView: starts as soon as it has a size
+        isRunRequested = mRepeat > -1;
+    }
+
+
+    private void initSurface() {
+        setZOrderOnTop(true);
+        getHolder().setFormat(PixelFormat.TRANSLUCENT);
+        getHolder().addCallback(this);
+    }
+
+    public void setOnAnimationEventListener(MyView.OnAnimationEventListener listener) {
+        mAnimationListener = listener;
+    }
+
+    public void startAnim() {
+        isRunRequested = true;
+        wakeRenderThread();
+    }
+
+    public void stopAnim() {
+        isRunRequested = false;
+        wakeRenderThread();
+    }
+
+    public boolean isRunning() { return isRunning; }
+
+    /**
+     * Starts a batch of changes that reaches the render thread in one piece, see FigureProperties.
+     */
+    public FigureProperties edit() {
+        return new FigureProperties(mEditTarget);
+    }
+
+    /**
+     * Can be called from any thread, the properties must not be changed afterwards.
+     */
+    public void postProperties(FigureProperties properties) {
+        if (mPendingProperties.offer(properties)) {
+            wakeRenderThread();
+        }
+    }
+
+    public void setSpeed(float speed) { postProperties(new FigureProperties().setSpeed(speed)); }
+
+    public void setLineColor(int lineColor) { postProperties(new FigureProperties().setLineColor(lineColor)); }
+
+    public void setLineWidth(int lineWidth) { postProperties(new FigureProperties().setLineWidth(lineWidth)); }
+
+    public void setDotFigure(int dotFigure) { postProperties(new FigureProperties().setDotFigure(dotFigure)); }
+
+    public void setDotWidth(int dotWidth) { postProperties(new FigureProperties().setDotWidth(dotWidth)); }
+
+    public void setDotColor(int dotColor) { postProperties(new FigureProperties().setDotColor(dotColor)); }
+
+    public void setVertexCount(int vertexCount) { postProperties(new FigureProperties().setVertexCount(vertexCount)); }
+
+    public void setEdgeTopology(int edgeTopology) { postProperties(new FigureProperties().setEdgeTopology(edgeTopology)); }
+
+    public void setEdgeBudget(int edgeBudget) { postProperties(new FigureProperties().setEdgeBudget(edgeBudget)); }
+
+    public void setFrameRate(int frameRate) { postProperties(new FigureProperties().setFrameRate(frameRate)); }
+
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        isVisible = isShown();
+        wakeRenderThread();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        isVisible = visibility == VISIBLE && isShown();
+        wakeRenderThread();
+    }
+
+    // the size follows in surfaceChanged
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        mRenderThread = new RenderThread();
+        mRenderThread.start();
+        mRenderHandler = new Handler(mRenderThread.getLooper());
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        mSurfaceWidth = width;
+        mSurfaceHeight = height;
+        wakeRenderThread();
+    }
+
+    // the surface goes away after this returns, the render thread must not draw anymore
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        mRenderHandler = null;
+        mRenderThread.quit();
+        try {
+            mRenderThread.join();
+            mRenderThread.savePlayState();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mRenderThread = null;
+        mSurfaceWidth = 0;
+        mSurfaceHeight = 0;
+    }
+
+    private void wakeRenderThread() {
+        Handler handler = mRenderHandler;
+        if (handler != null) {
+            handler.post(mSync);
+        }
+    }
+
+
+    // everything below runs on the render thread only
+    private class RenderThread extends HandlerThread implements FrameClock.FrameCallback {
+        private FrameClock mClock;
+        private final CollapseAnimation mAnimation = new CollapseAnimation(4);
+        private final Kinematics mVertex = mAnimation.getVertices();
+        private final DrawList mDrawList = new DrawList();
+        private final FrameLimiter mFrameLimiter = new FrameLimiter();
+        private final FrameStateBuffer mFrames = new FrameStateBuffer(FRAME_STATE_CAPACITY);
+        private long mLastFrameTimeNanos = 0;
+
+        private final Paint mLinePaint = new Paint();
+        private final Paint mDotPaint = new Paint();
+        private final Paint mCenterPaint = new Paint();
+
+        private float mSpeed = 1f;
+        private int mLineColor = Color.BLACK;
+        private int mLineWidth = 2;
+        private int mDotFigure = FIGURE_CIRCLE;
+        private int mRadius = 20;
+        private int mDotColor = Color.BLUE;
+        private int mEdgeTopology = RectAnimationView.EDGES_COMPLETE;
+        private int mEdgeBudget = DrawList.DEFAULT_EDGE_BUDGET;
+        private int mFrameRate = AnimationTicker.FRAME_RATE_AUTO;
+        private int mWidth = 0;
+        private int mHeight = 0;
+
+        private final CollapseAnimation.Listener mCycleListener = new CollapseAnimation.Listener() {
+            @Override
+            public void onCollapsed() { mMainHandler.post(mCollapsedEvent); }
+
+            @Override
+            public void onExploded() { mMainHandler.post(mExplodedEvent); }
+
+            @Override
+            public void onRepeat() { mMainHandler.post(mStartedEvent); }
+
+            @Override
+            public void onEnd() {
+                isRunRequested = false;
+                isRunning = false;
+                mClock.stop();
+                mMainHandler.post(mStoppedEvent);
+            }
+        };
+
+        RenderThread() {
+            super(TAG);
+        }
+
+        @Override
+        protected void onLooperPrepared() {
+            mClock = new FrameClock(this);
+            mAnimation.setRepeatCount(mRepeat);
+            mAnimation.setListener(mCycleListener);
+            mDrawList.setTopology(mEdgeTopology, mVertex.getCount(), mEdgeBudget);
+            mDrawList.setHub(0.5f, 0.5f);
+            RectAnimationView.initVertices(mVertex);
+            RectAnimationView.setTiming(mAnimation, mSpeed);
+            // a surface that came back, e.g. after a detach: same figure, same point of the cycle
+            applyProperties(mAppliedProperties);
+            if (hasPlayState) {
+                if (isPlayStarted) {
+                    // sync() resumes it without another started event if it should run
+                    mAnimation.start();
+                    mAnimation.pause();
+                }
+                mAnimation.setPlayTime(mPlayTime);
+                mAnimation.setRepeatedCycles(mRepeatedCycles);
+            }
+        }
+
+        @Override
+        public boolean quit() {
+            // called from the main thread, the clock posts to this looper only
+            isRunning = false;
+            return super.quit();
+        }
+
+        // called after the looper quit, the next render thread continues from here
+        void savePlayState() {
+            hasPlayState = true;
+            isPlayStarted = mAnimation.isRunning() || mAnimation.isPaused();
+            mPlayTime = mAnimation.getPlayTime();
+            mRepeatedCycles = mAnimation.getRepeatedCycles();
+        }
+
+        // picks up whatever the main thread changed and starts or stops the clock
+        private void sync() {
+            FigureProperties properties = mPendingProperties.take();
+            if (properties != null) {
+                mAppliedProperties.putAll(properties);
+                applyProperties(properties);
+            }
+
+            boolean shouldTick = isRunRequested && isVisible && mSurfaceWidth > 0;
+            if (isRunRequested && !mAnimation.isRunning()) {
+                if (mAnimation.isPaused()) {
+                    mAnimation.resume();
+                } else {
+                    mAnimation.start();
+                    mMainHandler.post(mStartedEvent);
+                }
+            } else if (!isRunRequested && mAnimation.isRunning()) {
+                // a pause, no stopped event, see RectAnimationView.stopAnim()
+                mAnimation.pause();
+            }
+            isRunning = mAnimation.isRunning();
+
+            if (shouldTick && !mClock.isRunning()) {
+                mLastFrameTimeNanos = 0;
+                mFrameLimiter.reset();
+                mClock.start();
+            } else if (!shouldTick) {
+                mClock.stop();
+            }
+            // a still figure shows property and size changes right away
+            if (!shouldTick) {
+                publishFrame(Clock.SYSTEM.nanoTime());
+                render();
+            }
+        }
+
+        private void applyProperties(FigureProperties properties) {
+            if (properties.has(FigureProperties.SPEED)) mSpeed = properties.mSpeed;
+            if (properties.has(FigureProperties.LINE_COLOR)) mLineColor = properties.mLineColor;
+            if (properties.has(FigureProperties.LINE_WIDTH)) mLineWidth = properties.mLineWidth;
+            if (properties.has(FigureProperties.DOT_FIGURE)) mDotFigure = properties.mDotFigure;
+            if (properties.has(FigureProperties.DOT_WIDTH)) mRadius = properties.mDotWidth;
+            if (properties.has(FigureProperties.DOT_COLOR)) mDotColor = properties.mDotColor;
+            if (properties.has(FigureProperties.VERTEX_COUNT)) {
+                mAnimation.setVertexCount(Math.max(2, properties.mVertexCount));
+            }
+            if (properties.has(FigureProperties.EDGE_TOPOLOGY)) mEdgeTopology = properties.mEdgeTopology;
+            if (properties.has(FigureProperties.EDGE_BUDGET)) mEdgeBudget = properties.mEdgeBudget;
+            if (properties.has(FigureProperties.FRAME_RATE)) mFrameRate = properties.mFrameRate;
+
+            if (properties.has(FigureProperties.VERTEX_COUNT | FigureProperties.EDGE_TOPOLOGY | FigureProperties.EDGE_BUDGET)) {
+                mDrawList.setTopology(mEdgeTopology, mVertex.getCount(), mEdgeBudget);
+                mDrawList.setHub(0.5f, 0.5f);
+            }
+            if (properties.has(FigureProperties.VERTEX_COUNT)) {
+                RectAnimationView.initVertices(mVertex);
+            }
+            if (properties.has(FigureProperties.VERTEX_COUNT | FigureProperties.SPEED)) {
+                RectAnimationView.setTiming(mAnimation, mSpeed);
+            }
+            if (properties.has(FigureProperties.DOT_WIDTH)) {
+                mWidth = 0; // the inset changed, map the figure again
+            }
+            updatePaints();
+        }
+
+        private void updatePaints() {
+            mCenterPaint.setColor(mDotColor);
+            mDotPaint.setColor(mDotColor);
+            mDotPaint.setStrokeCap(mDotFigure == FIGURE_RECTANGLE ? Paint.Cap.SQUARE : Paint.Cap.ROUND);
+            mDotPaint.setStrokeWidth(mRadius * 2);
+            mLinePaint.setColor(mLineColor);
+            mLinePaint.setStrokeWidth(mLineWidth);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            // AUTO is plain vsync here, the ticker's instance count and power state belong to the main thread
+            int frameRate = mFrameRate == AnimationTicker.FRAME_RATE_AUTO ? AnimationTicker.FRAME_RATE_VSYNC : mFrameRate;
+            mFrameLimiter.setMaxFps(frameRate);
+            if (!mFrameLimiter.accept(frameTimeNanos)) return;
+
+            if (mLastFrameTimeNanos != 0) {
+                mAnimation.advance((frameTimeNanos - mLastFrameTimeNanos) / 1000000f);
+            }
+            mLastFrameTimeNanos = frameTimeNanos;
+            publishFrame(frameTimeNanos);
+            render();
+        }
+
+        // simulation side: everything the drawing needs, in one atomic swap
+        private void publishFrame(long frameTimeNanos) {
+            FrameState state = mFrames.getWriteState();
+            state.setPositions(mVertex);
+            state.setAlphas(mAnimation.getCenterAlpha(), mAnimation.getDotAlpha());
+            state.setColors(mLineColor, mDotColor);
+            state.setFrameTimeNanos(frameTimeNanos);
+            mFrames.publish();
+        }
+
+        private void render() {
+            int width = mSurfaceWidth;
+            int height = mSurfaceHeight;
+            if (width <= 0 || height <= 0) return;
+            if (width != mWidth || height != mHeight) {
+                mWidth = width;
+                mHeight = height;
+                mDrawList.setTransform(mWidth - 2 * mRadius, mHeight - 2 * mRadius, mRadius, mRadius);
+            }
+            FrameState state = mFrames.getReadState();
+            if (state.getCount() != mVertex.getCount()) return; // published before a vertex count change
+            mDrawList.update(state.getXs(), state.getYs());
+            mLinePaint.setColor(state.getLineColor());
+
+            SurfaceHolder holder = getHolder();
+            Canvas canvas = holder.lockCanvas();
+            if (canvas == null) return;
+            try {
+                canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+                canvas.drawLines(mDrawList.getLines(), 0, mDrawList.getLineFloatCount(), mLinePaint);
+                drawDots(canvas, state);
+            } finally {
+                holder.unlockCanvasAndPost(canvas);
+            }
+        }
+
+        private void drawDots(Canvas canvas, FrameState state) {
+            if (mDotFigure == FIGURE_NONE) return;
+
+            mCenterPaint.setColor(state.getDotColor());
+            mCenterPaint.setAlpha(state.getCenterAlpha());
+            mDotPaint.setColor(state.getDotColor());
+            mDotPaint.setAlpha(state.getDotAlpha());
+            if (mDotFigure == FIGURE_RECTANGLE) {
+                canvas.drawRect(mWidth / 2 - mRadius * 2, mHeight / 2 - mRadius * 2,
+                        mWidth / 2 + mRadius * 2, mHeight / 2 + mRadius * 2, mCenterPaint);
+            } else {
+                canvas.drawCircle(mWidth / 2, mHeight / 2, mRadius * 2, mCenterPaint);
+            }
+            canvas.drawPoints(mDrawList.getPoints(), 0, mDrawList.getPointFloatCount(), mDotPaint);
+        }
+    }
+}
@@ -1,23 +1,31 @@
 package com.stang.customview;
 
-import android.animation.Animator;
-import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.Trace;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.View;
 
-import java.util.Arrays;
-import java.util.List;
+import com.stang.customview.core.CollapseAnimation;
+import com.stang.customview.core.DrawList;
+import com.stang.customview.core.FrameLimiter;
+import com.stang.customview.core.FrameMetrics;
+import com.stang.customview.core.Kinematics;
+import com.stang.customview.core.PendingSlot;
+import com.stang.customview.core.Polygon;
 
-import static android.animation.ObjectAnimator.ofInt;
 import static java.lang.Math.abs;
 
 /**
@@ -31,37 +39,154 @@ public class RectAnimationView extends View {
     public static final int FIGURE_CIRCLE= 2;
     public static final int FIGURE_IMAGE = 3;
 
+    public static final int EDGES_COMPLETE = DrawList.TOPOLOGY_COMPLETE;
+    public static final int EDGES_RING = DrawList.TOPOLOGY_RING;
+    public static final int EDGES_STAR = DrawList.TOPOLOGY_STAR;
+
+    public static final int FRAME_RATE_AUTO = AnimationTicker.FRAME_RATE_AUTO;
+    public static final int FRAME_RATE_VSYNC = AnimationTicker.FRAME_RATE_VSYNC;
+
+    private static final String TRACE_FRAME = "RectAnimationView.onFrame";
+    private static final String TRACE_DRAW = "RectAnimationView.onDraw";
+
     private int mHeight = 0;
     private int mWidth = 0;
-    private int mCenterX = 0;
-    private int mCenterY = 0;
     private int mRadius = 20;
     private int mCenterAlpha = 0;
     private int mDotAlpha = 255;
     private float mSpeed = 1f;
     private int mRepeat = 0;
-    private long mRepeatedCycles = 0;
     private int mLineColor = Color.BLACK;
     private int mLineWidth = 2;
     private int mDotFigure = FIGURE_NONE;
     private int mDotWidth = 20;
     private int mDotColor = Color.BLUE;
+    private int mVertexCount = 4;
+    private int mEdgeTopology = EDGES_COMPLETE;
+    private int mEdgeBudget = DrawList.DEFAULT_EDGE_BUDGET;
+    // start delay between neighbour vertices of the 4 vertex figure, the total spread stays the same for any count
+    private static final int VERTEX_DELAY = 200;
 
     Paint mLinePaint;
     Paint mDotPaint;
     Paint mCenterPaint;
+    Paint mSpritePaint;
     private Drawable mDotsImage;
-    private Drawable mCenterImage;
+    // FIGURE_IMAGE rasterized from mDotsImage, see SpriteCache
+    private Bitmap mDotSprite;
+    private Bitmap mCenterSprite;
 
     private boolean isSetRunningOnSizeChanged = false;
+    private boolean isAttached = false;
+    // set by setProgress, applied once in the next onDraw
+    private float mPendingProgress = 0;
+    private boolean isProgressPending = false;
+
+    private final CollapseAnimation mAnimation = new CollapseAnimation(4);
+    private final Kinematics mVertex = mAnimation.getVertices();
+    private final DrawList mDrawList = new DrawList();
+    private long mLastFrameTimeNanos = 0;
+
+    // advances the animation once per frame while it is running
+    private final AnimationTicker.Client mTickerClient = new AnimationTicker.Client() {
+        @Override
+        public void onTick(long frameTimeNanos) {
+            int frameRate = AnimationTicker.getInstance().resolveFrameRate(mFrameRate);
+            mFrameLimiter.setMaxFps(frameRate);
+            if (!mFrameLimiter.accept(frameTimeNanos)) return;
+
+            if (mMetrics != null) {
+                mMetrics.onFrame(frameTimeNanos, frameRate > 0 ? 1000000000L / frameRate : mVsyncIntervalNanos);
+            }
+            beginTrace(TRACE_FRAME);
+            onFrame(frameTimeNanos);
+            endTrace();
+        }
+    };
+    private final FrameLimiter mFrameLimiter = new FrameLimiter();
+    private int mFrameRate = FRAME_RATE_AUTO;
+    private long mVsyncIntervalNanos = FrameClock.DEFAULT_VSYNC_INTERVAL_NANOS;
+
+    private boolean isBaked = false;
+    // the shared line masks of the current configuration, null when off or when it does not fit the cache
+    private FrameAtlas mAtlas;
+    private boolean isAtlasUnavailable = false;
+    // frames of the collapse phase including its end, the explode phase follows, see getAtlasTimes
+    private int mAtlasCollapseFrames = 0;
+    private float mAtlasFrameInterval = 0;
+    private float[] mAtlasTimes;
+    // the mask shown, the dots are evaluated at its time; -1 until the atlas is applied
+    private int mAtlasFrame = -1;
+    private boolean isBakeScheduled = false;
+    private final Paint mMaskPaint = new Paint();
+    // the masks are rendered from a copy of the animation, the view's own state is never moved
+    private final CollapseAnimation mBakeAnimation = new CollapseAnimation(4);
+    private final DrawList mBakeDrawList = new DrawList();
+    private final Paint mBakePaint = new Paint();
+    private final FrameAtlas.Renderer mAtlasRenderer = new FrameAtlas.Renderer() {
+        @Override
+        public void getFrameBounds(float time, int[] out) {
+            evaluateBake(time);
+            mBakeDrawList.resetDirtyBounds();
+            mBakeDrawList.includePoints();
+            // a hub sits in the middle
+            mBakeDrawList.includeDirty(mWidth / 2, mHeight / 2);
+            int pad = mLineWidth + 1;
+            out[0] = Math.max(0, (int) Math.floor(mBakeDrawList.getDirtyLeft()) - pad);
+            out[1] = Math.max(0, (int) Math.floor(mBakeDrawList.getDirtyTop()) - pad);
+            out[2] = Math.min(mWidth, (int) Math.ceil(mBakeDrawList.getDirtyRight()) + pad);
+            out[3] = Math.min(mHeight, (int) Math.ceil(mBakeDrawList.getDirtyBottom()) + pad);
+        }
 
-    private Vertex[] mVertex;
-    AnimatorSet mAnimatorSet;
+        @Override
+        public void renderFrame(Canvas canvas, float time) {
+            evaluateBake(time);
+            canvas.drawLines(mBakeDrawList.getLines(), 0, mBakeDrawList.getLineFloatCount(), mBakePaint);
+        }
+    };
+    // renders one mask whenever the main looper runs out of messages, never inside a frame or a draw
+    private final MessageQueue.IdleHandler mBakeIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            isBakeScheduled = mAtlas != null && mAtlas.renderNextFrame(mAtlasRenderer);
+            return isBakeScheduled;
+        }
+    };
+
+    // written by any thread through postProperties, applied on the main thread
+    private final PendingSlot<FigureProperties> mPendingProperties = new PendingSlot<>(FigureProperties.MERGER);
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mApplyPendingProperties = new Runnable() {
+        @Override
+        public void run() {
+            FigureProperties properties = mPendingProperties.take();
+            if (properties != null) applyProperties(properties);
+        }
+    };
+    private final FigureProperties.Target mEditTarget = new FigureProperties.Target() {
+        @Override
+        public void applyProperties(FigureProperties properties) {
+            RectAnimationView.this.applyProperties(properties);
+        }
+    };
+
+    // null while metrics are off
+    private FrameMetrics mMetrics;
+    private boolean isTraceEnabled = false;
 
     MyView.OnAnimationEventListener mAnimationListener = null;
 
 
-    public void setSpeed(float speed) { mSpeed = speed; setPaintProperties(); }
+    /**
+     * Takes effect immediately, a running animation stays in its phase.
+     */
+    public void setSpeed(float speed) {
+        mSpeed = speed;
+        updateTiming();
+        releaseAtlas();
+        applyAnimationState();
+        setPaintProperties();
+    }
 
     public void setLineColor(int lineColor) { mLineColor = lineColor; setPaintProperties(); }
 
@@ -73,7 +198,153 @@ public class RectAnimationView extends View {
 
     public void setDotColor(int dotColor) { mDotColor = dotColor; setPaintProperties(); }
 
-    public void setDotsImage(Drawable image) { mDotsImage = image; mCenterImage = image; setPaintProperties(); }
+    public void setDotsImage(Drawable image) { mDotsImage = image; setPaintProperties(); }
+
+    public void setVertexCount(int vertexCount) {
+        mVertexCount = Math.max(2, vertexCount);
+        mAnimation.setVertexCount(mVertexCount);
+        updateTopology();
+        init();
+    }
+
+    public void setEdgeTopology(int edgeTopology) { mEdgeTopology = edgeTopology; updateTopology(); invalidate(); }
+
+    /**
+     * Maximum number of edges drawn, a complete graph over the budget is drawn as a ring.
+     */
+    public void setEdgeBudget(int edgeBudget) { mEdgeBudget = edgeBudget; updateTopology(); invalidate(); }
+
+    /**
+     * FRAME_RATE_VSYNC, a cap in frames per second (e.g. 30, 20, 15) or FRAME_RATE_AUTO,
+     * which caps only in power save mode or with many animating views, see AnimationTicker.
+     */
+    public void setFrameRate(int frameRate) { mFrameRate = frameRate; }
+
+    public int getFrameRate() { return mFrameRate; }
+
+    /**
+     * Draws the lines from masks rendered once and shared by all views with the same geometry,
+     * see FrameAtlas and FrameAtlasCache. The masks are rendered one per idle pass of the main looper,
+     * the lines are drawn live until then; configurations too large for the cache are rendered live, see isBaked().
+     * The dots move in the steps of the masks so the lines always end in them.
+     */
+    public void setBakedPlayback(boolean baked) {
+        isBaked = baked;
+        releaseAtlas();
+        applyAnimationState();
+        invalidate();
+    }
+
+    public boolean isBakedPlayback() { return isBaked; }
+
+    /**
+     * Whether the lines are actually played from baked masks:
+     * false when baked playback is off, the view has no size yet or its atlas does not fit the cache.
+     */
+    public boolean isBaked() { return getAtlas() != null; }
+
+    /**
+     * Starts a batch of changes, e.g. edit().setSpeed(2).setDotColor(color).setVertexCount(8).apply(),
+     * which rebuilds geometry and timing once and invalidates once instead of once per setter.
+     */
+    public FigureProperties edit() {
+        return new FigureProperties(mEditTarget);
+    }
+
+    /**
+     * Can be called from any thread, the properties must not be changed afterwards.
+     * Updates posted before the main thread gets to them are merged and applied in a single pass,
+     * the main looper gets one message per batch however many updates come in.
+     */
+    public void postProperties(FigureProperties properties) {
+        if (mPendingProperties.offer(properties)) {
+            mMainHandler.post(mApplyPendingProperties);
+        }
+    }
+
+    // applies everything that was set in one pass: topology and geometry once, paints once, one invalidate
+    void applyProperties(FigureProperties properties) {
+        if (properties.has(FigureProperties.SPEED)) mSpeed = properties.mSpeed;
+        if (properties.has(FigureProperties.LINE_COLOR)) mLineColor = properties.mLineColor;
+        if (properties.has(FigureProperties.LINE_WIDTH)) mLineWidth = properties.mLineWidth;
+        if (properties.has(FigureProperties.DOT_FIGURE)) mDotFigure = properties.mDotFigure;
+        if (properties.has(FigureProperties.DOT_WIDTH)) mDotWidth = properties.mDotWidth;
+        if (properties.has(FigureProperties.DOT_COLOR)) mDotColor = properties.mDotColor;
+        if (properties.has(FigureProperties.VERTEX_COUNT)) {
+            mVertexCount = Math.max(2, properties.mVertexCount);
+            mAnimation.setVertexCount(mVertexCount);
+        }
+        if (properties.has(FigureProperties.EDGE_TOPOLOGY)) mEdgeTopology = properties.mEdgeTopology;
+        if (properties.has(FigureProperties.EDGE_BUDGET)) mEdgeBudget = properties.mEdgeBudget;
+        if (properties.has(FigureProperties.FRAME_RATE)) mFrameRate = properties.mFrameRate;
+
+        if (properties.has(FigureProperties.VERTEX_COUNT | FigureProperties.EDGE_TOPOLOGY | FigureProperties.EDGE_BUDGET)) {
+            updateTopology();
+        }
+        if (properties.has(FigureProperties.VERTEX_COUNT)) {
+            init();
+        } else if (properties.has(FigureProperties.SPEED)) {
+            updateTiming();
+            releaseAtlas();
+            applyAnimationState();
+        }
+        // invalidates as well
+        setPaintProperties();
+    }
+
+    /**
+     * Records draw time, tick to draw latency, missed frames and cycles, see getMetrics().
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (!enabled) {
+            mMetrics = null;
+        } else if (mMetrics == null) {
+            mMetrics = new FrameMetrics();
+        }
+    }
+
+    public boolean isMetricsEnabled() { return mMetrics != null; }
+
+    /**
+     * Copies the metrics into out, or a new snapshot if out is null.
+     * @return null while metrics are off
+     */
+    public FrameMetrics.Snapshot getMetrics(FrameMetrics.Snapshot out) {
+        return mMetrics != null ? mMetrics.snapshot(out) : null;
+    }
+
+    public void resetMetrics() {
+        if (mMetrics != null) mMetrics.reset();
+    }
+
+    /**
+     * Wraps every frame and draw in an android.os.Trace section, API 18+.
+     */
+    public void setTraceEnabled(boolean enabled) { isTraceEnabled = enabled; }
+
+    public boolean isTraceEnabled() { return isTraceEnabled; }
+
+    /**
+     * Shows the figure at a point of one cycle, 0 is the start of the collapse and 1 the end of the center fade,
+     * and stops the animation. Any number of calls between two frames cost one invalidate
+     * and are applied once in the next onDraw.
+     */
+    public void setProgress(float progress) {
+        if (mAnimation.isRunning()) stopAnim();
+        // driven from outside now, do not start on the next layout either
+        setRunningOnSizeChanged(false);
+        mPendingProgress = Math.max(0, Math.min(1, progress));
+        if (!isProgressPending) {
+            isProgressPending = true;
+            invalidate();
+        }
+    }
+
+    public float getProgress() {
+        if (isProgressPending) return mPendingProgress;
+        float cycle = mAnimation.getCycleDuration();
+        return cycle > 0 ? mAnimation.getPlayTime() / cycle : 0;
+    }
 
     public void setMCenterAlpha(int a) {mCenterAlpha = a;}
 
@@ -95,7 +366,13 @@ public class RectAnimationView extends View {
 
     public Drawable getDotsImage() { return mDotsImage; }
 
-    public boolean isRunning() { return mAnimatorSet.isRunning(); }
+    public int getVertexCount() { return mVertexCount; }
+
+    public int getEdgeTopology() { return mEdgeTopology; }
+
+    public int getEdgeBudget() { return mEdgeBudget; }
+
+    public boolean isRunning() { return mAnimation.isRunning(); }
 
 
     public void setOnAnimationEventListener(MyView.OnAnimationEventListener listener) {
@@ -137,21 +414,27 @@ public class RectAnimationView extends View {
 
     public void startAnim() {
         Log.d(TAG, "startAnim: " + this);
-        if((Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) && (mAnimatorSet.isPaused())) {
-                mAnimatorSet.resume();
+        if(mAnimation.isPaused()) {
+            // continue from a scrub that was not drawn yet
+            if (isProgressPending) mAnimation.setPlayTime(mPendingProgress * mAnimation.getCycleDuration());
+            mAnimation.resume();
         } else {
             init();
-            mAnimatorSet.start();
+            mAnimation.start();
+            onAnimationStarted();
         }
+        isProgressPending = false;
+        mLastFrameTimeNanos = 0;
+        updateTicking();
     }
 
+    /**
+     * Pauses, startAnim() continues from there. Like the AnimatorSet.pause() it replaced this fires no
+     * onAnimationStopped, that comes only when the last repeat ends.
+     */
     public void stopAnim() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
-            mAnimatorSet.pause();
-        } else {
-            mAnimatorSet.cancel();
-            mRepeatedCycles=0;
-        }
+        mAnimation.pause();
+        updateTicking();
         setRunningOnSizeChanged(false);
     }
 
@@ -179,6 +462,8 @@ public class RectAnimationView extends View {
             mDotWidth = a.getDimensionPixelSize(R.styleable.RectAnimationView_rav_dot_width, 10);
             mLineWidth = a.getDimensionPixelSize(R.styleable.RectAnimationView_rav_line_width, 1);
             mRepeat = a.getInt(R.styleable.RectAnimationView_rav_repeat_counts, 0);
+            mVertexCount = Math.max(2, a.getInt(R.styleable.RectAnimationView_rav_vertex_count, 4));
+            mEdgeTopology = a.getInt(R.styleable.RectAnimationView_rav_edge_topology, EDGES_COMPLETE);
         } finally {
             a.recycle();
         }
@@ -190,8 +475,13 @@ public class RectAnimationView extends View {
         mLinePaint = new Paint();
         mDotPaint = new Paint();
         mCenterPaint = new Paint();
+        mSpritePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
 
-        mVertex = new Vertex[4];
+        mAnimation.setVertexCount(mVertexCount);
+        updateTopology();
+        mAnimation.setRepeatCount(mRepeat);
+        mAnimation.setListener(mCycleListener);
+        init();
 
         setDotsImage(context.getResources().getDrawable(R.drawable.ok_));
 
@@ -201,11 +491,24 @@ public class RectAnimationView extends View {
 
     private void setPaintProperties(){
         mCenterPaint.setColor(mDotColor);
-        mCenterImage.setAlpha(mCenterAlpha);
         mCenterPaint.setAlpha(mCenterAlpha);
         mDotPaint.setColor(mDotColor);
+        // dots are drawn with drawPoints: a square or round cap the size of the dot
+        mDotPaint.setStrokeCap(mDotFigure == FIGURE_RECTANGLE ? Paint.Cap.SQUARE : Paint.Cap.ROUND);
+        mDotPaint.setStrokeWidth(mRadius * 2);
         mLinePaint.setColor(mLineColor);
         mLinePaint.setStrokeWidth(mLineWidth);
+        // alpha masks are drawn in the paint's color
+        mMaskPaint.setColor(mLineColor);
+
+        if (mDotFigure == FIGURE_IMAGE) {
+            mDotSprite = SpriteCache.getInstance().get(mDotsImage, mRadius * 2);
+            mCenterSprite = SpriteCache.getInstance().get(mDotsImage, mRadius * 4);
+        } else {
+            mDotSprite = null;
+            mCenterSprite = null;
+        }
+        releaseAtlas();
         invalidate();
     }
 
@@ -214,323 +517,441 @@ public class RectAnimationView extends View {
         super.onSizeChanged(w, h, oldw, oldh);
         mHeight = h;
         mWidth = w;
-        mCenterX = mWidth /2;
-        mCenterY = mHeight /2;
-        Log.d(TAG, this + " onSizeChanged: " + mHeight + ":" + mWidth + "   center: " + mCenterX + ":" + mCenterY + "   mRadius: " + mRadius);
-
-        init();
-
-        if(isSetRunningOnSizeChanged) {
-            mAnimatorSet.start();
-            mRepeatedCycles++;
+        Log.d(TAG, this + " onSizeChanged: " + mHeight + ":" + mWidth + "   mRadius: " + mRadius);
+
+        // the geometry is normalized, a new size only changes how it is mapped to pixels
+        updateTransform();
+
+        if(isSetRunningOnSizeChanged && !mAnimation.isRunning() && !mAnimation.isPaused()) {
+            isProgressPending = false;
+            mAnimation.start();
+            mAnimation.setRepeatedCycles(mAnimation.getRepeatedCycles() + 1);
+            onAnimationStarted();
+            mLastFrameTimeNanos = 0;
+            updateTicking();
         }
     }
 
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        state.mPlayTime = isProgressPending ? mPendingProgress * mAnimation.getCycleDuration() : mAnimation.getPlayTime();
+        state.mRepeatedCycles = mAnimation.getRepeatedCycles();
+        state.mFlags = (mAnimation.isRunning() ? SavedState.FLAG_RUNNING : 0)
+                | (mAnimation.isPaused() ? SavedState.FLAG_PAUSED : 0)
+                | (isSetRunningOnSizeChanged ? SavedState.FLAG_START_ON_SIZE : 0);
+        return state;
+    }
 
-    private void init() {
-        Point center = new Point(mCenterX, mCenterY);
-        Point leftUp = new Point(mRadius, mRadius);
-        Point leftBottom = new Point(mRadius, mHeight-mRadius);
-        Point rightUp = new Point(mWidth-mRadius, mRadius);
-        Point rightBottom = new Point(mWidth - mRadius, mHeight - mRadius);
-
-        Point left = new Point(mRadius, mCenterY);
-        Point bottom = new Point(mCenterX, mHeight - mRadius);
-        Point right = new Point(mWidth - mRadius, mCenterY);
-        Point up = new Point(mCenterX, mRadius);
-
-        mVertex[0] = new Vertex(leftUp, left, center);
-        mVertex[1] = new Vertex(leftBottom, bottom, center);
-        mVertex[2] = new Vertex(rightBottom, right, center);
-        mVertex[3] = new Vertex(rightUp, up, center);
-
-        int duration = (int) (1000 / mSpeed);
-        int delay = 200;
-
-        AnimatorSet playTo = new AnimatorSet();
-        playTo.addListener(new Animator.AnimatorListener() {
-            @Override
-            public void onAnimationStart(Animator animation) {
-
-            }
-
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                onAnimationCollapsed();
-            }
-
-            @Override
-            public void onAnimationCancel(Animator animation) {
-
-            }
-
-            @Override
-            public void onAnimationRepeat(Animator animation) {
-
-            }
-        });
-        playTo.playTogether(
-                mVertex[0].setStartDelay(delay * 0).getAnimTo(duration),
-                mVertex[1].setStartDelay(delay * 1).getAnimTo(duration),
-                mVertex[2].setStartDelay(delay * 2).getAnimTo(duration),
-                mVertex[3].setStartDelay(delay * 3).getAnimTo(duration)
-                );
-
-        AnimatorSet playFrom = new AnimatorSet();
-        playFrom.addListener(new Animator.AnimatorListener() {
-            @Override
-            public void onAnimationStart(Animator animation) {  }
+    // continues where the animation was before, without events and without starting over
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState saved = (SavedState) state;
+        super.onRestoreInstanceState(saved.getSuperState());
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                onAnimationExploded();
-            }
+        isProgressPending = false;
+        if ((saved.mFlags & (SavedState.FLAG_RUNNING | SavedState.FLAG_PAUSED)) != 0) {
+            mAnimation.start();
+            if ((saved.mFlags & SavedState.FLAG_PAUSED) != 0) mAnimation.pause();
+        } else {
+            mAnimation.stop();
+        }
+        mAnimation.setPlayTime(saved.mPlayTime);
+        mAnimation.setRepeatedCycles(saved.mRepeatedCycles);
+        setRunningOnSizeChanged((saved.mFlags & SavedState.FLAG_START_ON_SIZE) != 0);
 
-            @Override
-            public void onAnimationCancel(Animator animation) {  }
+        mLastFrameTimeNanos = 0;
+        applyAnimationState();
+        invalidate();
+        updateTicking();
+    }
 
-            @Override
-            public void onAnimationRepeat(Animator animation) {  }
-        });
-        playFrom.playTogether(
-                mVertex[0].setStartDelay(delay * 0).getAnimFrom(duration),
-                mVertex[1].setStartDelay(delay * 1).getAnimFrom(duration),
-                mVertex[2].setStartDelay(delay * 2).getAnimFrom(duration),
-                mVertex[3].setStartDelay(delay * 3).getAnimFrom(duration)
-        );
+    static class SavedState extends BaseSavedState {
+        static final int FLAG_RUNNING = 1;
+        static final int FLAG_PAUSED = 1 << 1;
+        static final int FLAG_START_ON_SIZE = 1 << 2;
 
-        ObjectAnimator alphaCenterAnim = ObjectAnimator.ofInt(this, "mCenterAlpha", new int[]{0,255,0,255,0,255,0}).setDuration(duration *2);
-        ObjectAnimator alphaVertexAnim = ObjectAnimator.ofInt(this, "mDotAlpha", new int[]{255,0,155,0,155,0,255}).setDuration(duration *2);
+        float mPlayTime;
+        long mRepeatedCycles;
+        int mFlags;
 
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
 
-        //mAnimatorSet.cancel();
-        mAnimatorSet = new AnimatorSet();
-        mAnimatorSet.addListener(new Animator.AnimatorListener() {
-            @Override
-            public void onAnimationStart(Animator animation) {
-                postInvalidateDelayed(1);
-                onAnimationStarted();
-            }
+        private SavedState(Parcel in) {
+            super(in);
+            mPlayTime = in.readFloat();
+            mRepeatedCycles = in.readLong();
+            mFlags = in.readInt();
+        }
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                Log.d(TAG, "OnAnimEnd");
-                if(mRepeat==0 || mRepeatedCycles < mRepeat){
-                    mRepeatedCycles++;
-                    mAnimatorSet.start();
-                } else {
-                    onAnimationStopped();
-                    setRunningOnSizeChanged(false);
-                }
-            }
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeFloat(mPlayTime);
+            out.writeLong(mRepeatedCycles);
+            out.writeInt(mFlags);
+        }
 
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
             @Override
-            public void onAnimationCancel(Animator animation) {
-                //
-                onAnimationStopped();
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
             }
 
             @Override
-            public void onAnimationRepeat(Animator animation) {
-                postInvalidateDelayed(1);
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
             }
-        });
-        mAnimatorSet.playSequentially(playTo, alphaVertexAnim, playFrom, alphaCenterAnim);
-     }
+        };
+    }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        isAttached = true;
+        AnimationTicker.getInstance().watchPowerSaveMode(getContext());
+        mVsyncIntervalNanos = FrameClock.getVsyncIntervalNanos(getContext());
+        updateTicking();
+    }
 
     @Override
-    protected void onDraw(Canvas canvas) {
-        drawLines(canvas);
-        drawDots(canvas);
-        //if(isRunning()) postInvalidateDelayed(50);
-        if(mAnimatorSet.isRunning()) postInvalidateDelayed(50);
+    protected void onDetachedFromWindow() {
+        isAttached = false;
+        updateTicking();
+        // stops the bake, the next draw takes the atlas from the cache again
+        releaseAtlas();
+        super.onDetachedFromWindow();
     }
 
-    private void drawDots(Canvas canvas) {
-        mCenterPaint.setAlpha(mCenterAlpha);
-        mDotPaint.setAlpha(mDotAlpha);
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateTicking();
+    }
 
-        switch (mDotFigure){
-            case FIGURE_NONE: //none
-                break;
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateTicking();
+    }
 
-            case FIGURE_RECTANGLE:
-                canvas.drawRect(mHeight /2- mRadius *2, mWidth /2- mRadius *2, mHeight /2+ mRadius *2, mWidth /2+ mRadius *2, mCenterPaint);
-                for (int i = 0; i < mVertex.length; i++) {
-                    canvas.drawRect(mVertex[i].getX()- mRadius, mVertex[i].getY()- mRadius, mVertex[i].getX()+ mRadius, mVertex[i].getY()+ mRadius, mDotPaint);
-                }
-                break;
+    // ticks only while running and actually on screen, the animation time stands still in between
+    private void updateTicking() {
+        AnimationTicker ticker = AnimationTicker.getInstance();
+        boolean tick = mAnimation.isRunning() && isAttached && getWindowVisibility() == VISIBLE && isShown();
+        if (tick && !ticker.isRegistered(mTickerClient)) {
+            mFrameLimiter.reset();
+            // the first frame after a pause must not count the time spent hidden
+            mLastFrameTimeNanos = 0;
+            ticker.register(mTickerClient);
+        } else if (!tick) {
+            ticker.unregister(mTickerClient);
+            if (mMetrics != null) mMetrics.onPause();
+        }
+    }
 
-            case FIGURE_CIRCLE:
-                canvas.drawCircle(mHeight /2, mWidth /2, mRadius *2, mCenterPaint);
-                for (int i = 0; i < mVertex.length; i++) {
-                    canvas.drawCircle(mVertex[i].getX(), mVertex[i].getY(), mRadius, mDotPaint);
-                }
-                break;
+    private void beginTrace(String section) {
+        if (isTraceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(section);
+        }
+    }
 
-            case FIGURE_IMAGE:
-                mCenterImage.setBounds((int)(mHeight / 2 - mRadius *2), (int)(mWidth / 2 - mRadius *2),
-                        (int)(mHeight / 2 + mRadius *2), (int)(mWidth / 2 + mRadius *2));
-                mCenterImage.setAlpha(mCenterAlpha);
-                mCenterImage.draw(canvas);
-
-                mDotsImage.setAlpha(mDotAlpha);
-                for (int i = 0; i < mVertex.length; i++) {
-                    mDotsImage.setBounds(mVertex[i].getX()- mRadius, mVertex[i].getY()- mRadius,
-                            mVertex[i].getX()+ mRadius, mVertex[i].getY()+ mRadius);
-                    mDotsImage.draw(canvas);
-                }
-                break;
+    private void endTrace() {
+        if (isTraceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
         }
     }
 
-    private void drawLines(Canvas canvas) {
-        canvas.drawLine(mVertex[0].getX(), mVertex[0].getY(), mVertex[1].getX(), mVertex[1].getY(), mLinePaint);
-        canvas.drawLine(mVertex[0].getX(), mVertex[0].getY(), mVertex[2].getX(), mVertex[2].getY(), mLinePaint);
-        canvas.drawLine(mVertex[0].getX(), mVertex[0].getY(), mVertex[3].getX(), mVertex[3].getY(), mLinePaint);
 
-        canvas.drawLine(mVertex[1].getX(), mVertex[1].getY(), mVertex[2].getX(), mVertex[2].getY(), mLinePaint);
-        canvas.drawLine(mVertex[1].getX(), mVertex[1].getY(), mVertex[3].getX(), mVertex[3].getY(), mLinePaint);
+    private final CollapseAnimation.Listener mCycleListener = new CollapseAnimation.Listener() {
+        @Override
+        public void onCollapsed() {
+            onAnimationCollapsed();
+        }
 
-        canvas.drawLine(mVertex[2].getX(), mVertex[2].getY(), mVertex[3].getX(), mVertex[3].getY(), mLinePaint);
-    }
+        @Override
+        public void onExploded() {
+            onAnimationExploded();
+        }
 
+        @Override
+        public void onRepeat() {
+            if (mMetrics != null) mMetrics.onCycle();
+            onAnimationStarted();
+        }
 
-    public class Point {
-        public int x = 0;
-        public int y = 0;
+        @Override
+        public void onEnd() {
+            Log.d(TAG, "OnAnimEnd");
+            updateTicking();
+            onAnimationStopped();
+            setRunningOnSizeChanged(false);
+        }
+    };
 
-        public Point(int x, int y) { this.x = x; this.y = y; }
 
-        public int getX() { return x; }
-        public int getY() { return y; }
-        public void setX(int x) { this.x = x;}
-        public void setY(int y) { this.y = y;}
-     }
+    // the unit square maps onto the view inset by the dot radius
+    private void updateTransform() {
+        mDrawList.setTransform(mWidth - 2 * mRadius, mHeight - 2 * mRadius, mRadius, mRadius);
+        releaseAtlas();
+        applyAnimationState();
+        invalidate();
+    }
 
-    public class VertexL {
-        private int mStartDelay = 0;
-        private List<Point> mPath;
-        public Point mCurrentPoint;
+    // moves the keyframes to the vertex count and the timing to the current speed, in place,
+    // in normalized coordinates: the size does not change them, see updateTransform
+    private void init() {
+        initVertices(mVertex);
+        mDrawList.invalidate();
+        releaseAtlas();
 
-        public int getX(){ return mCurrentPoint.getX(); }
-        public int getY(){ return mCurrentPoint.getY(); }
+        updateTiming();
+        applyAnimationState();
+        invalidate();
+    }
 
-        public VertexL(Point ... points) {
-            if(points != null) {
-                mPath = Arrays.asList(points);
-                mCurrentPoint = new Point(
-                        mPath.get(0).getX(),
-                        mPath.get(0).getY()
-                        );
-            }
+    // vertices sit on the border counterclockwise from the top left corner,
+    // move to the middle of the side to the next vertex and then to the center
+    static void initVertices(Kinematics vertex) {
+        int count = vertex.getCount();
+        for (int i = 0; i < count; i++) {
+            Polygon.placeOnRectangle(vertex, i, CollapseAnimation.KEYFRAME_START, Polygon.angle(i, count, 225, false),
+                    0.5f, 0.5f, 0.5f, 0.5f);
+        }
+        for (int i = 0; i < count; i++) {
+            int next = (i + 1) % count;
+            vertex.setKeyframe(i, 1,
+                    (vertex.getKeyframeX(i, 0) + vertex.getKeyframeX(next, 0)) / 2,
+                    (vertex.getKeyframeY(i, 0) + vertex.getKeyframeY(next, 0)) / 2);
+            vertex.setKeyframe(i, CollapseAnimation.KEYFRAME_END, 0.5f, 0.5f);
         }
+    }
 
-        public VertexL() {
+    static void setTiming(CollapseAnimation animation, float speed) {
+        animation.setTiming(1000 / speed, VERTEX_DELAY * 3f / Math.max(1, animation.getVertexCount() - 1));
+    }
 
-        }
+    private void updateTiming() {
+        setTiming(mAnimation, mSpeed);
+    }
 
-        public AnimatorSet getAnimTo(int duration){
-            int[] xArray = new int[mPath.size()];
-            int[] yArray = new int[mPath.size()];
+    private void updateTopology() {
+        mDrawList.setTopology(mEdgeTopology, mVertex.getCount(), mEdgeBudget);
+        mDrawList.setHub(0.5f, 0.5f);
+        mDrawList.update(mVertex.getXs(), mVertex.getYs());
+        releaseAtlas();
+    }
 
-            for (int i = 0; i < mPath.size(); i++) {
-                xArray[i] = mPath.get(i).getX();
-                yArray[i] = mPath.get(i).getY();
+    private void releaseAtlas() {
+        mAtlas = null;
+        mAtlasFrame = -1;
+        isAtlasUnavailable = false;
+        if (isBakeScheduled) {
+            Looper.myQueue().removeIdleHandler(mBakeIdleHandler);
+            isBakeScheduled = false;
+        }
+    }
+
+    // the atlas to draw from in baked mode, measures it on the first call for a configuration
+    private FrameAtlas getAtlas() {
+        if (!isBaked || isAtlasUnavailable || mWidth <= 0 || mHeight <= 0) return null;
+        if (mAtlas == null) {
+            FrameAtlasCache cache = FrameAtlasCache.getInstance();
+            mAtlasFrameInterval = 1000f / cache.getFrameRate();
+            FrameAtlas.Key key = new FrameAtlas.Key(null, mWidth, mHeight, mLineWidth, mRadius,
+                    mVertex.getCount(), mEdgeTopology, mDrawList.getEdgeCount(), cache.getFrameRate(),
+                    Float.floatToIntBits(mAnimation.getDuration()), Float.floatToIntBits(mAnimation.getVertexDelay()));
+
+            mBakeAnimation.setVertexCount(mVertex.getCount());
+            initVertices(mBakeAnimation.getVertices());
+            mBakeAnimation.setTiming(mAnimation.getDuration(), mAnimation.getVertexDelay());
+            mBakeDrawList.setTopology(mEdgeTopology, mVertex.getCount(), mEdgeBudget);
+            mBakeDrawList.setHub(0.5f, 0.5f);
+            mBakeDrawList.setTransform(mWidth - 2 * mRadius, mHeight - 2 * mRadius, mRadius, mRadius);
+            mBakePaint.set(mLinePaint);
+            mBakePaint.setColor(Color.BLACK);
+
+            mAtlasTimes = getAtlasTimes();
+            mAtlas = cache.obtain(key, mAtlasTimes, mAtlasRenderer);
+            isAtlasUnavailable = mAtlas == null;
+            if (isAtlasUnavailable) {
+                Log.d(TAG, "baked playback does not fit the cache, rendering live: " + this);
+            } else if (!isBakeScheduled) {
+                Looper.myQueue().addIdleHandler(mBakeIdleHandler);
+                isBakeScheduled = true;
             }
+        }
+        return mAtlas;
+    }
 
-            AnimatorSet result = new AnimatorSet();
-            result.playTogether(ObjectAnimator.ofInt(this.mCurrentPoint,"x",xArray).setDuration(duration),
-                    ObjectAnimator.ofInt(this.mCurrentPoint,"y", yArray).setDuration(duration));
-            return result;
+    // the lines only move in the collapse and explode phases, the fades reuse their end frames
+    private float[] getAtlasTimes() {
+        float collapse = mAnimation.getPhaseDuration(CollapseAnimation.PHASE_COLLAPSE);
+        float explodeStart = mAnimation.getPhaseStart(CollapseAnimation.PHASE_EXPLODE);
+        int collapseIntervals = (int) Math.ceil(collapse / mAtlasFrameInterval);
+        int explodeIntervals = (int) Math.ceil(mAnimation.getPhaseDuration(CollapseAnimation.PHASE_EXPLODE) / mAtlasFrameInterval);
+
+        mAtlasCollapseFrames = collapseIntervals + 1;
+        float[] times = new float[mAtlasCollapseFrames + Math.max(0, explodeIntervals - 1)];
+        for (int i = 0; i < mAtlasCollapseFrames; i++) {
+            times[i] = Math.min(i * mAtlasFrameInterval, collapse);
         }
+        // the start of the explode phase is the collapsed end, its end the start of the cycle
+        for (int i = 1; i < explodeIntervals; i++) {
+            times[mAtlasCollapseFrames + i - 1] = explodeStart + i * mAtlasFrameInterval;
+        }
+        return times;
+    }
 
-        public AnimatorSet getAnimFrom(int duration){
-            int[] xArray = new int[mPath.size()];
-            int[] yArray = new int[mPath.size()];
+    private int getAtlasFrameIndex() {
+        float local = mAnimation.getPlayTime() - mAnimation.getPhaseStart(mAnimation.getPhase());
+        int index = (int) (local / mAtlasFrameInterval);
+        switch (mAnimation.getPhase()) {
+            case CollapseAnimation.PHASE_COLLAPSE:
+                return Math.min(index, mAtlasCollapseFrames - 1);
+            case CollapseAnimation.PHASE_DOT_FADE:
+                return mAtlasCollapseFrames - 1;
+            case CollapseAnimation.PHASE_EXPLODE:
+                if (index <= 0) return mAtlasCollapseFrames - 1;
+                if (mAtlasCollapseFrames + index - 1 >= mAtlas.getFrameCount()) return 0;
+                return mAtlasCollapseFrames + index - 1;
+            default:
+                return 0;
+        }
+    }
 
-            for (int i = 0; i < mPath.size(); i++) {
-                xArray[i] = mPath.get(mPath.size() - i -1).getX();
-                yArray[i] = mPath.get(mPath.size() - i -1).getY();
-            }
+    private void evaluateBake(float time) {
+        mBakeAnimation.setPlayTime(time);
+        Kinematics vertex = mBakeAnimation.getVertices();
+        mBakeDrawList.update(vertex.getXs(), vertex.getYs());
+    }
 
-            AnimatorSet result = new AnimatorSet();
-            result.playTogether(ObjectAnimator.ofInt(this.mCurrentPoint,"x",xArray).setDuration(duration),
-                    ObjectAnimator.ofInt(this.mCurrentPoint,"y", yArray).setDuration(duration));
-            result.setStartDelay(mStartDelay);
-            return result;
+    private void onFrame(long frameTimeNanos) {
+        if (mLastFrameTimeNanos != 0) {
+            mAnimation.advance((frameTimeNanos - mLastFrameTimeNanos) / 1000000f);
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+
+        // only the area that changed: moved vertices with their edges, faded dots, the faded center figure
+        // and, baked, the old and the new mask
+        mDrawList.resetDirtyBounds();
+        int centerAlpha = mCenterAlpha;
+        int dotAlpha = mDotAlpha;
+        int atlasFrame = mAtlasFrame;
+        applyAnimationState();
+        if (atlasFrame != mAtlasFrame) {
+            if (atlasFrame >= 0) includeAtlasFrame(atlasFrame);
+            includeAtlasFrame(mAtlasFrame);
+        }
+        if (dotAlpha != mDotAlpha) {
+            mDrawList.includePoints();
+        }
+        if (centerAlpha != mCenterAlpha) {
+            // drawn around (mHeight / 2, mWidth / 2), see drawDots
+            mDrawList.includeDirty(mHeight / 2 - mRadius * 2, mWidth / 2 - mRadius * 2);
+            mDrawList.includeDirty(mHeight / 2 + mRadius * 2, mWidth / 2 + mRadius * 2);
         }
+        invalidateDirtyBounds();
+    }
 
-        public VertexL setStartDelay(int delay) {
-            mStartDelay = delay;
-            return this;
+    // pushes the evaluated animation values into the view, onDraw only draws the buffers;
+    // baked, the dots are placed at the time of the shown mask instead of the play time
+    private void applyAnimationState() {
+        setMCenterAlpha(mAnimation.getCenterAlpha());
+        setMDotAlpha(mAnimation.getDotAlpha());
+        if (getAtlas() != null) {
+            mAtlasFrame = getAtlasFrameIndex();
+            evaluateBake(mAtlasTimes[mAtlasFrame]);
+            Kinematics vertex = mBakeAnimation.getVertices();
+            mDrawList.update(vertex.getXs(), vertex.getYs());
+        } else {
+            mAtlasFrame = -1;
+            mDrawList.update(mVertex.getXs(), mVertex.getYs());
         }
     }
 
-    public class Vertex {
-        private int mStartDelay = 0;
-        private Point[] mPath;
-        public Point mCurrentPoint;
+    private void includeAtlasFrame(int index) {
+        mDrawList.includeDirty(mAtlas.getFrameLeft(index), mAtlas.getFrameTop(index));
+        mDrawList.includeDirty(mAtlas.getFrameRight(index), mAtlas.getFrameBottom(index));
+    }
 
-        public int getX(){ return mCurrentPoint.getX(); }
-        public int getY(){ return mCurrentPoint.getY(); }
+    private void invalidateDirtyBounds() {
+        if (!mDrawList.hasDirtyBounds()) return;
 
-        public Vertex(Point ... points) {
-            if(points != null) {
-                mPath = points;
-                mCurrentPoint = new Point(
-                        mPath[0].getX(),
-                        mPath[0].getY()
-                );
-            }
-        }
+        // dots and line ends stick out of the positions, one more pixel for antialiasing
+        int pad = Math.max(mRadius, mLineWidth) + 1;
+        invalidate((int) Math.floor(mDrawList.getDirtyLeft()) - pad, (int) Math.floor(mDrawList.getDirtyTop()) - pad,
+                (int) Math.ceil(mDrawList.getDirtyRight()) + pad, (int) Math.ceil(mDrawList.getDirtyBottom()) + pad);
+    }
 
-        public Vertex(){ }
 
-        public void setStartPosition(){
-            if(mCurrentPoint != null){
-                mCurrentPoint.setX(mPath[0].getX());
-                mCurrentPoint.setY(mPath[0].getY());
-            }
+    @Override
+    protected void onDraw(Canvas canvas) {
+        long start = mMetrics != null ? AnimationTicker.getInstance().getClock().nanoTime() : 0;
+        beginTrace(TRACE_DRAW);
+
+        if (isProgressPending) {
+            isProgressPending = false;
+            mAnimation.setPlayTime(mPendingProgress * mAnimation.getCycleDuration());
+            applyAnimationState();
+        }
+
+        FrameAtlas atlas = getAtlas();
+        // an atlas taken in this draw, the dots move to its frame
+        if (atlas != null && mAtlasFrame < 0) applyAnimationState();
+        Bitmap mask = atlas != null ? atlas.getFrame(mAtlasFrame) : null;
+        if (mask != null) {
+            canvas.drawBitmap(mask, atlas.getFrameLeft(mAtlasFrame), atlas.getFrameTop(mAtlasFrame), mMaskPaint);
+        } else {
+            // not baked, or the mask is not rendered yet: the live lines are at the same time as the dots
+            drawLines(canvas);
         }
+        drawDots(canvas);
 
-        public AnimatorSet getAnimTo(int duration){
-            int[] xArray = new int[mPath.length];
-            int[] yArray = new int[mPath.length];
+        endTrace();
+        if (mMetrics != null) mMetrics.onDraw(start, AnimationTicker.getInstance().getClock().nanoTime());
+    }
 
-            for (int i = 0; i < mPath.length; i++) {
-                xArray[i] = mPath[i].getX();
-                yArray[i] = mPath[i].getY();
-            }
+    private void drawDots(Canvas canvas) {
+        mCenterPaint.setAlpha(mCenterAlpha);
+        mDotPaint.setAlpha(mDotAlpha);
 
-            AnimatorSet result = new AnimatorSet();
-            result.playTogether(ObjectAnimator.ofInt(this.mCurrentPoint,"x",xArray).setDuration(duration),
-                    ObjectAnimator.ofInt(this.mCurrentPoint,"y", yArray).setDuration(duration));
-            result.setStartDelay(mStartDelay);
-            return result;
-        }
+        switch (mDotFigure){
+            case FIGURE_NONE: //none
+                break;
 
-        public AnimatorSet getAnimFrom(int duration){
-            int[] xArray = new int[mPath.length];
-            int[] yArray = new int[mPath.length];
+            case FIGURE_RECTANGLE:
+                canvas.drawRect(mHeight /2- mRadius *2, mWidth /2- mRadius *2, mHeight /2+ mRadius *2, mWidth /2+ mRadius *2, mCenterPaint);
+                canvas.drawPoints(mDrawList.getPoints(), 0, mDrawList.getPointFloatCount(), mDotPaint);
+                break;
 
-            for (int i = 0; i < mPath.length; i++) {
-                xArray[i] = mPath[mPath.length - i -1].getX();
-                yArray[i] = mPath[mPath.length - i -1].getY();
-            }
+            case FIGURE_CIRCLE:
+                canvas.drawCircle(mHeight /2, mWidth /2, mRadius *2, mCenterPaint);
+                canvas.drawPoints(mDrawList.getPoints(), 0, mDrawList.getPointFloatCount(), mDotPaint);
+                break;
 
-            AnimatorSet result = new AnimatorSet();
-            result.playTogether(ObjectAnimator.ofInt(this.mCurrentPoint,"x",xArray).setDuration(duration),
-                    ObjectAnimator.ofInt(this.mCurrentPoint,"y", yArray).setDuration(duration));
-            result.setStartDelay(mStartDelay);
-            return result;
+            case FIGURE_IMAGE:
+                if (mDotSprite == null) break;
+                mSpritePaint.setAlpha(mCenterAlpha);
+                canvas.drawBitmap(mCenterSprite, mHeight / 2 - mRadius *2, mWidth / 2 - mRadius *2, mSpritePaint);
+
+                mSpritePaint.setAlpha(mDotAlpha);
+                float[] points = mDrawList.getPoints();
+                for (int i = 0; i < mDrawList.getVertexCount(); i++) {
+                    canvas.drawBitmap(mDotSprite, (int) points[i * 2]- mRadius, (int) points[i * 2 + 1]- mRadius, mSpritePaint);
+                }
+                break;
         }
+    }
 
-        public Vertex setStartDelay(int delay) {
-            mStartDelay = delay;
-            return this;
-        }
+    private void drawLines(Canvas canvas) {
+        canvas.drawLines(mDrawList.getLines(), 0, mDrawList.getLineFloatCount(), mLinePaint);
     }
 
 
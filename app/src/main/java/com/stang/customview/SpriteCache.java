@@ -0,0 +1,127 @@
+package com.stang.customview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+/**
+ * Process wide cache of drawables rasterized into square bitmaps, shared by all views.
+ * A sprite is rendered once per (drawable, size) from a private copy of the drawable,
+ * so neither its bounds nor its alpha leak into other users of the same drawable.
+ * Views draw the bitmap with drawBitmap and set the alpha on their own Paint.
+ * Least recently used sprites are evicted once the byte budget is exceeded.
+ * Must be used from the main thread only.
+ */
+
+public class SpriteCache {
+    public static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    private static SpriteCache sInstance;
+
+    private final LruCache<Key, Bitmap> mCache;
+    // lookup key, reused so a hit does not allocate
+    private final Key mLookup = new Key();
+
+
+    public static SpriteCache getInstance() {
+        if (sInstance == null) {
+            // never take more than 1/32 of the heap
+            int maxBytes = (int) Math.min(DEFAULT_MAX_BYTES, Runtime.getRuntime().maxMemory() / 32);
+            sInstance = new SpriteCache(maxBytes);
+        }
+        return sInstance;
+    }
+
+    SpriteCache(int maxBytes) {
+        mCache = new LruCache<Key, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+
+    /**
+     * Returns the drawable rasterized to size x size pixels, from the cache if possible.
+     * @return null if there is nothing to draw
+     */
+    public Bitmap get(Drawable drawable, int size) {
+        if (drawable == null || size <= 0) return null;
+
+        mLookup.set(sourceOf(drawable), size);
+        Bitmap sprite = mCache.get(mLookup);
+        if (sprite == null) {
+            sprite = rasterize(drawable, size);
+            Key key = new Key();
+            key.set(mLookup.mSource, size);
+            mCache.put(key, sprite);
+        }
+        return sprite;
+    }
+
+    public int getHitCount() { return mCache.hitCount(); }
+
+    public int getMissCount() { return mCache.missCount(); }
+
+    public int getEvictionCount() { return mCache.evictionCount(); }
+
+    /**
+     * Bytes held by the cached bitmaps.
+     */
+    public int getByteCount() { return mCache.size(); }
+
+    public int getMaxByteCount() { return mCache.maxSize(); }
+
+    public void clear() { mCache.evictAll(); }
+
+
+    // drawables loaded from the same resource share their constant state
+    private static Object sourceOf(Drawable drawable) {
+        Drawable.ConstantState state = drawable.getConstantState();
+        return state != null ? state : drawable;
+    }
+
+    private static Bitmap rasterize(Drawable drawable, int size) {
+        Drawable.ConstantState state = drawable.getConstantState();
+        Drawable copy = drawable;
+        if (state != null) {
+            // the shared state may still carry an alpha some view set on it
+            copy = state.newDrawable().mutate();
+            copy.setAlpha(255);
+        }
+
+        Rect bounds = copy.copyBounds();
+        Bitmap sprite = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(sprite);
+        copy.setBounds(0, 0, size, size);
+        copy.draw(canvas);
+        copy.setBounds(bounds);
+        return sprite;
+    }
+
+
+    private static class Key {
+        Object mSource;
+        int mSize;
+
+        void set(Object source, int size) {
+            mSource = source;
+            mSize = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return mSource == other.mSource && mSize == other.mSize;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(mSource) * 31 + mSize;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.stang.customview;
+
+import android.app.Activity;
+import android.view.View;
+
+import com.stang.customview.core.Clock;
+import com.stang.customview.core.FrameStepper;
+import com.stang.customview.core.VirtualClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.ActivityController;
+import org.robolectric.util.ReflectionHelpers;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests stepping attached views through the shared ticker on a virtual clock.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class AnimationTickerTest {
+    private static final long START_NANOS = 1000000000L;
+    private static final long FRAME_MILLIS = 10;
+
+    private final VirtualClock mClock = new VirtualClock(START_NANOS);
+    private final StringBuilder mEvents = new StringBuilder();
+    private AnimationTicker mTicker;
+    private FrameStepper mStepper;
+    private ActivityController<Activity> mActivityController;
+    private Activity mActivity;
+    private RectAnimationView mRectView;
+    private MyView mMyView;
+
+    private final MyView.OnAnimationEventListener mListener = new MyView.OnAnimationEventListener() {
+        @Override
+        public void onAnimationStarted() { log("S"); }
+
+        @Override
+        public void onAnimationStopped() { log("P"); }
+
+        @Override
+        public void onAnimationCollapsed() { log("C"); }
+
+        @Override
+        public void onAnimationExploded() { log("E"); }
+    };
+
+    private void log(String event) {
+        mEvents.append(event).append('@').append((mClock.nanoTime() - START_NANOS) / 1000000L).append(' ');
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mTicker = AnimationTicker.getInstance();
+        // turns the display frames off, only these frames reach the views
+        mTicker.setClock(mClock);
+        mStepper = new FrameStepper(mClock, new FrameStepper.Callback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                mTicker.tick(frameTimeNanos);
+            }
+        });
+        mStepper.setFrameIntervalNanos(FRAME_MILLIS * 1000000L);
+        mActivityController = Robolectric.buildActivity(Activity.class).create();
+        mActivity = mActivityController.get();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        // the ticker is process wide, no view may stay registered for the next test
+        if (mRectView != null) mRectView.stopAnim();
+        if (mMyView != null) mMyView.stopAnim();
+        assertEquals(0, mTicker.getActiveCount());
+        mTicker.setClock(Clock.SYSTEM);
+    }
+
+    @Test
+    public void rectAnimationView_callbacksAtExactTimes() throws Exception {
+        RectAnimationView view = new RectAnimationView(mActivity, Robolectric.buildAttributeSet().build());
+        mRectView = view;
+        view.setRunningOnSizeChanged(false);
+        view.setOnAnimationEventListener(mListener);
+        attach(view);
+
+        view.startAnim();
+        assertEquals(1, mTicker.getActiveCount());
+        // the first frame only anchors the time
+        mStepper.frame();
+        // no display frame is pending that could interleave with the virtual ones
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertEquals("S@0 ", mEvents.toString());
+
+        // speed 1 and 4 vertices: collapse 1600 ms, dot fade 2000 ms, explode 1600 ms, center fade 2000 ms
+        mStepper.stepMillis(1590);
+        assertEquals("S@0 ", mEvents.toString());
+        mStepper.step();
+        assertEquals("S@0 C@1600 ", mEvents.toString());
+        mStepper.stepMillis(7200 - 1600);
+        assertEquals("S@0 C@1600 E@5200 S@7200 ", mEvents.toString());
+
+        // a pause: no stopped event and no more frames
+        view.stopAnim();
+        assertEquals(0, mTicker.getActiveCount());
+        mStepper.stepMillis(1000);
+        assertEquals("S@0 C@1600 E@5200 S@7200 ", mEvents.toString());
+    }
+
+    @Test
+    public void myView_collapsesAndExplodesInTurn() throws Exception {
+        MyView view = new MyView(mActivity, Robolectric.buildAttributeSet().build());
+        mMyView = view;
+        // 0.1 timeline units per ms: one sweep over the 350 units takes 3500 ms
+        view.setSpeed(0.01f);
+        view.setOnAnimationEventListener(mListener);
+        attach(view);
+
+        view.startAnim();
+        assertEquals(1, mTicker.getActiveCount());
+        mStepper.frame();
+
+        mStepper.stepMillis(3490);
+        assertEquals("S@0 ", mEvents.toString());
+        // the exact frame of a turn depends on float rounding of the rate, the order does not
+        mStepper.stepMillis(3500 * 3);
+        assertEquals("S C E C ", mEvents.toString().replaceAll("@\\d+", ""));
+
+        view.stopAnim();
+        assertEquals(0, mTicker.getActiveCount());
+    }
+
+    // the content view is attached when the window becomes visible;
+    // the window manager tells the root the app is visible, Robolectric does not: the views would see GONE
+    private void attach(View view) {
+        mActivity.setContentView(view);
+        mActivityController.start().resume().visible();
+        ReflectionHelpers.callInstanceMethod(mActivity.getWindow().getDecorView().getParent(), "dispatchAppVisibility",
+                ReflectionHelpers.ClassParameter.from(boolean.class, true));
+        Robolectric.flushForegroundThreadScheduler();
+        assertEquals(View.VISIBLE, view.getWindowVisibility());
+    }
+}
@@ -0,0 +1,78 @@
+package com.stang.customview.benchmark;
+
+import com.stang.customview.core.CollapseAnimation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per frame cost of the alpha ramps, computed for every vertex with a staggered time.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AlphaRampBenchmark {
+    static final int[] CENTER_ALPHA = new int[]{0, 255, 0, 255, 0, 255, 0};
+
+    @Param({"4", "64", "1024", "10240"})
+    public int vertexCount;
+
+    private int[] mAlphas;
+    private float mFraction;
+    private float mTimeline;
+
+    @Setup
+    public void setUp() {
+        mAlphas = new int[vertexCount];
+    }
+
+    @Benchmark
+    public int legacyTimelineAlpha() {
+        mTimeline += 0.7f;
+        if (mTimeline > -30) mTimeline = -150;
+        int[] alphas = mAlphas;
+        for (int i = 0; i < alphas.length; i++) {
+            alphas[i] = Legacy.timelineAlpha(mTimeline - (i % 4) * 30);
+        }
+        return alphas[alphas.length - 1];
+    }
+
+    @Benchmark
+    public int legacyKeyframeAlpha() {
+        mFraction += 0.008f;
+        if (mFraction > 1) mFraction = 0;
+        int[] alphas = mAlphas;
+        float step = 0.1f / alphas.length;
+        for (int i = 0; i < alphas.length; i++) {
+            alphas[i] = Legacy.keyframeAlpha(CENTER_ALPHA, mFraction - i * step);
+        }
+        return alphas[alphas.length - 1];
+    }
+
+    @Benchmark
+    public int coreKeyframeAlpha() {
+        mFraction += 0.008f;
+        if (mFraction > 1) mFraction = 0;
+        int[] alphas = mAlphas;
+        float step = 0.1f / alphas.length;
+        for (int i = 0; i < alphas.length; i++) {
+            alphas[i] = CollapseAnimation.keyframeValue(CENTER_ALPHA, mFraction - i * step);
+        }
+        return alphas[alphas.length - 1];
+    }
+}
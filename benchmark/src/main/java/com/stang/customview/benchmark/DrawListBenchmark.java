@@ -0,0 +1,151 @@
+package com.stang.customview.benchmark;
+
+import com.stang.customview.core.DrawList;
+import com.stang.customview.core.Kinematics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per frame cost of producing the line list handed to the canvas.
+ * The legacy variants emit one drawLine call per edge like the views do today,
+ * the buffer variants fill one float[] for a single Canvas.drawLines call.
+ * The complete graph has n * (n - 1) / 2 edges, so it only runs up to 1024 vertices
+ * (10240 vertices would need a 200M float buffer).
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrawListBenchmark {
+
+    @State(Scope.Thread)
+    public static class Figure {
+        @Param({"4", "64", "1024", "10240"})
+        public int vertexCount;
+
+        Legacy.Vertex[] legacy;
+        Kinematics core;
+        float[] buffer;
+
+        @Setup
+        public void setUp() {
+            legacy = Figures.legacyVertices(vertexCount);
+            core = Figures.coreVertices(vertexCount);
+            core.evaluate(Figures.DURATION / 2, Figures.DURATION, false, Kinematics.INTERPOLATOR_ACCELERATE_DECELERATE);
+            for (int i = 0; i < legacy.length; i++) {
+                legacy[i].animate(Figures.DURATION / 2, Figures.DURATION);
+            }
+            buffer = new float[vertexCount * 4];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CompleteFigure {
+        @Param({"4", "64", "1024"})
+        public int vertexCount;
+
+        Legacy.Vertex[] legacy;
+        Kinematics core;
+        float[] buffer;
+        DrawList drawList;
+
+        @Setup
+        public void setUp() {
+            legacy = Figures.legacyVertices(vertexCount);
+            core = Figures.coreVertices(vertexCount);
+            core.evaluate(Figures.DURATION / 2, Figures.DURATION, false, Kinematics.INTERPOLATOR_ACCELERATE_DECELERATE);
+            for (int i = 0; i < legacy.length; i++) {
+                legacy[i].animate(Figures.DURATION / 2, Figures.DURATION);
+            }
+            buffer = new float[vertexCount * (vertexCount - 1) * 2];
+            drawList = new DrawList();
+            drawList.setCompleteGraph(vertexCount);
+        }
+    }
+
+    @Benchmark
+    public void legacyRingDrawLine(Figure f, Blackhole bh) {
+        Legacy.Vertex[] v = f.legacy;
+        for (int i = 0; i < v.length; i++) {
+            Legacy.Point a = v[i].current;
+            Legacy.Point b = v[(i + 1) % v.length].current;
+            drawLine(bh, a.x, a.y, b.x, b.y);
+        }
+    }
+
+    @Benchmark
+    public float ringBuffer(Figure f) {
+        float[] xs = f.core.getXs();
+        float[] ys = f.core.getYs();
+        float[] out = f.buffer;
+        int n = f.core.getCount();
+        int o = 0;
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            out[o++] = xs[i];
+            out[o++] = ys[i];
+            out[o++] = xs[j];
+            out[o++] = ys[j];
+        }
+        return out[o - 1];
+    }
+
+    @Benchmark
+    public void legacyCompleteDrawLine(CompleteFigure f, Blackhole bh) {
+        Legacy.Vertex[] v = f.legacy;
+        for (int i = 0; i < v.length; i++) {
+            for (int j = i + 1; j < v.length; j++) {
+                drawLine(bh, v[i].current.x, v[i].current.y, v[j].current.x, v[j].current.y);
+            }
+        }
+    }
+
+    @Benchmark
+    public float completeBuffer(CompleteFigure f) {
+        float[] xs = f.core.getXs();
+        float[] ys = f.core.getYs();
+        float[] out = f.buffer;
+        int n = f.core.getCount();
+        int o = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                out[o++] = xs[i];
+                out[o++] = ys[i];
+                out[o++] = xs[j];
+                out[o++] = ys[j];
+            }
+        }
+        return out[o - 1];
+    }
+
+    // every vertex moved, the worst case for DrawList
+    @Benchmark
+    public float completeDrawListAllMoved(CompleteFigure f) {
+        f.drawList.invalidate();
+        f.drawList.update(f.core.getXs(), f.core.getYs());
+        return f.drawList.getLines()[0];
+    }
+
+    // stands in for one Canvas.drawLine call
+    private static void drawLine(Blackhole bh, float x0, float y0, float x1, float y1) {
+        bh.consume(x0);
+        bh.consume(y0);
+        bh.consume(x1);
+        bh.consume(y1);
+    }
+}
@@ -0,0 +1,77 @@
+package com.stang.customview.benchmark;
+
+import com.stang.customview.core.Kinematics;
+
+/**
+ * Builds the same N vertex figure for the legacy objects and for the core arrays.
+ * Vertices sit on a circle and move to the center through a point on the horizontal axis,
+ * like the corner -> edge middle -> center paths of RectAnimationView.
+ */
+
+final class Figures {
+    static final int SIZE = 1000;
+    static final int CENTER = SIZE / 2;
+    static final int DURATION = 1000;
+    static final int DELAY = 200;
+
+    private Figures() {
+    }
+
+    static int startX(int i, int count) {
+        return CENTER + (int) (CENTER * Math.cos(2 * Math.PI * i / count));
+    }
+
+    static int startY(int i, int count) {
+        return CENTER + (int) (CENTER * Math.sin(2 * Math.PI * i / count));
+    }
+
+    static Legacy.Dot[] legacyDots(int count) {
+        Legacy.Dot[] dots = new Legacy.Dot[count];
+        for (int i = 0; i < count; i++) {
+            dots[i] = new Legacy.Dot(startX(i, count), startY(i, count), CENTER, CENTER, i % 2 == 1);
+        }
+        return dots;
+    }
+
+    static Kinematics coreDots(int count) {
+        Kinematics k = new Kinematics(count, 3);
+        for (int i = 0; i < count; i++) {
+            int sx = startX(i, count);
+            int sy = startY(i, count);
+            k.setKeyframe(i, 0, sx, sy);
+            if (i % 2 == 1) {
+                k.setKeyframe(i, 1, CENTER, sy);
+            } else {
+                k.setKeyframe(i, 1, sx, CENTER);
+            }
+            k.setKeyframe(i, 2, CENTER, CENTER);
+            k.setDelay(i, (i % 4) * 30);
+        }
+        return k;
+    }
+
+    static Legacy.Vertex[] legacyVertices(int count) {
+        Legacy.Vertex[] vertices = new Legacy.Vertex[count];
+        Legacy.Point center = new Legacy.Point(CENTER, CENTER);
+        for (int i = 0; i < count; i++) {
+            int sx = startX(i, count);
+            int sy = startY(i, count);
+            vertices[i] = new Legacy.Vertex(DELAY * (i % 4),
+                    new Legacy.Point(sx, sy), new Legacy.Point(sx, CENTER), center);
+        }
+        return vertices;
+    }
+
+    static Kinematics coreVertices(int count) {
+        Kinematics k = new Kinematics(count, 3);
+        for (int i = 0; i < count; i++) {
+            int sx = startX(i, count);
+            int sy = startY(i, count);
+            k.setKeyframe(i, 0, sx, sy);
+            k.setKeyframe(i, 1, sx, CENTER);
+            k.setKeyframe(i, 2, CENTER, CENTER);
+            k.setDelay(i, DELAY * (i % 4));
+        }
+        return k;
+    }
+}
@@ -0,0 +1,124 @@
+package com.stang.customview.benchmark;
+
+/**
+ * Copies of the per object math the views used before the :core module,
+ * kept as the baseline the core implementations are compared with.
+ */
+
+final class Legacy {
+
+    private Legacy() {
+    }
+
+    /**
+     * MyView.Dot: one object per corner, double math, int positions.
+     */
+    static final class Dot {
+        int currentX;
+        int currentY;
+        final int startX;
+        final int endX;
+        final int startY;
+        final int endY;
+        final boolean rotated;
+
+        Dot(int sx, int sy, int ex, int ey, boolean rotated) {
+            this.startX = sx;
+            this.startY = sy;
+            this.endX = ex;
+            this.endY = ey;
+            this.currentX = sx;
+            this.currentY = sy;
+            this.rotated = rotated;
+        }
+
+        void calcPosition(float p) {
+            int percent = (int) p;
+
+            if (p < 1) {
+                percent = 0;
+            } else if (p > 99) {
+                percent = 100;
+            }
+
+            if ((percent >= 0) && (percent < 50)) {
+                if (rotated) {
+                    currentY = startY;
+                    currentX = (int) (startX + (double) (endX - startX) * ((double) percent / 100D * 2D));
+                } else {
+                    currentX = startX;
+                    currentY = (int) (startY + (double) (endY - startY) * ((double) percent / 100D * 2D));
+                }
+            } else if ((percent >= 50) && (percent <= 100)) {
+                if (rotated) {
+                    currentX = endX;
+                    currentY = (int) (startY + (double) (endY - startY) * ((double) (percent - 50) / 100D * 2D));
+                } else {
+                    currentY = endY;
+                    currentX = (int) (startX + (double) (endX - startX) * ((double) (percent - 50) / 100D * 2D));
+                }
+            }
+        }
+    }
+
+    static final class Point {
+        int x;
+        int y;
+
+        Point(int x, int y) { this.x = x; this.y = y; }
+
+        void setX(int x) { this.x = x; }
+        void setY(int y) { this.y = y; }
+    }
+
+    /**
+     * RectAnimationView.Vertex driven the way ObjectAnimator.ofInt(point, "x", values) does it:
+     * AccelerateDecelerateInterpolator in double math, then int keyframe evaluation, then a setter per axis.
+     */
+    static final class Vertex {
+        final Point[] path;
+        final Point current;
+        final int startDelay;
+
+        Vertex(int startDelay, Point... path) {
+            this.path = path;
+            this.startDelay = startDelay;
+            this.current = new Point(path[0].x, path[0].y);
+        }
+
+        void animate(long playTime, int duration) {
+            float fraction = (playTime - startDelay) / (float) duration;
+            if (fraction < 0) fraction = 0;
+            if (fraction > 1) fraction = 1;
+            fraction = (float) (Math.cos((fraction + 1) * Math.PI) / 2.0f) + 0.5f;
+
+            int intervals = path.length - 1;
+            int index = Math.min((int) (fraction * intervals), intervals - 1);
+            float intervalFraction = fraction * intervals - index;
+            Point prev = path[index];
+            Point next = path[index + 1];
+            current.setX((int) (prev.x + intervalFraction * (next.x - prev.x)));
+            current.setY((int) (prev.y + intervalFraction * (next.y - prev.y)));
+        }
+    }
+
+    /**
+     * MyView center figure alpha.
+     */
+    static int timelineAlpha(float timeline) {
+        return Math.abs(((int) timeline % 25)) * 10;
+    }
+
+    /**
+     * RectAnimationView alpha: ObjectAnimator.ofInt over several values with the default interpolator.
+     */
+    static int keyframeAlpha(int[] values, float fraction) {
+        if (fraction < 0) fraction = 0;
+        if (fraction > 1) fraction = 1;
+        fraction = (float) (Math.cos((fraction + 1) * Math.PI) / 2.0f) + 0.5f;
+        int intervals = values.length - 1;
+        int index = Math.min((int) (fraction * intervals), intervals - 1);
+        float intervalFraction = fraction * intervals - index;
+        return (int) (values[index] + intervalFraction * (values[index + 1] - values[index]));
+    }
+}
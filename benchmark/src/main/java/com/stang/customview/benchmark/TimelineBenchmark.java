@@ -0,0 +1,94 @@
+package com.stang.customview.benchmark;
+
+import com.stang.customview.core.Kinematics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per frame cost of evaluating every vertex position.
+ * One operation is one frame.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimelineBenchmark {
+
+    @Param({"4", "64", "1024", "10240"})
+    public int vertexCount;
+
+    private Legacy.Dot[] mLegacyDots;
+    private Legacy.Vertex[] mLegacyVertices;
+    private Kinematics mCoreDots;
+    private Kinematics mCoreVertices;
+
+    private float mTimeline;
+    private long mPlayTime;
+
+    @Setup
+    public void setUp() {
+        mLegacyDots = Figures.legacyDots(vertexCount);
+        mLegacyVertices = Figures.legacyVertices(vertexCount);
+        mCoreDots = Figures.coreDots(vertexCount);
+        mCoreVertices = Figures.coreVertices(vertexCount);
+    }
+
+    private float nextTimeline() {
+        mTimeline += 0.7f;
+        if (mTimeline > 200) mTimeline = -150;
+        return mTimeline;
+    }
+
+    private long nextPlayTime() {
+        mPlayTime += 16;
+        if (mPlayTime > Figures.DURATION + Figures.DELAY * 3) mPlayTime = 0;
+        return mPlayTime;
+    }
+
+    @Benchmark
+    public int legacyDotCalcPosition() {
+        float timeline = nextTimeline();
+        Legacy.Dot[] dots = mLegacyDots;
+        for (int i = 0; i < dots.length; i++) {
+            dots[i].calcPosition(timeline - (i % 4) * 30);
+        }
+        return dots[dots.length - 1].currentX;
+    }
+
+    @Benchmark
+    public float coreDotPaths() {
+        mCoreDots.evaluate(nextTimeline(), 100, false, Kinematics.INTERPOLATOR_LINEAR);
+        return mCoreDots.getX(vertexCount - 1);
+    }
+
+    @Benchmark
+    public int legacyVertexAnimators() {
+        long playTime = nextPlayTime();
+        Legacy.Vertex[] vertices = mLegacyVertices;
+        for (int i = 0; i < vertices.length; i++) {
+            vertices[i].animate(playTime, Figures.DURATION);
+        }
+        return vertices[vertices.length - 1].current.x;
+    }
+
+    @Benchmark
+    public float coreVertexPaths() {
+        mCoreVertices.evaluate(nextPlayTime(), Figures.DURATION, false, Kinematics.INTERPOLATOR_ACCELERATE_DECELERATE);
+        return mCoreVertices.getX(vertexCount - 1);
+    }
+}
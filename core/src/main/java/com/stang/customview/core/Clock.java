@@ -0,0 +1,18 @@
+package com.stang.customview.core;
+
+/**
+ * Monotonic time source of the animations, in the time base of the frame times they are driven with.
+ * SYSTEM is the real one, the same base as Choreographer frame times;
+ * tests inject a VirtualClock and step it frame by frame.
+ */
+
+public interface Clock {
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    long nanoTime();
+}
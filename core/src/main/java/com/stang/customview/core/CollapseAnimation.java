@@ -0,0 +1,255 @@
+package com.stang.customview.core;
+
+/**
+ * Collapse / explode cycle of RectAnimationView as a value driven state machine.
+ * One cycle plays four phases one after another: the vertices move to the center,
+ * the dots fade, the vertices move back and the center figure fades.
+ * advance() moves the play time and writes positions and alphas directly, no animators involved.
+ * Times are in milliseconds.
+ */
+
+public class CollapseAnimation {
+    public static final int PHASE_COLLAPSE = 0;
+    public static final int PHASE_DOT_FADE = 1;
+    public static final int PHASE_EXPLODE = 2;
+    public static final int PHASE_CENTER_FADE = 3;
+    public static final int PHASE_COUNT = 4;
+
+    public static final int KEYFRAME_COUNT = 3;
+    public static final int KEYFRAME_START = 0;
+    public static final int KEYFRAME_END = KEYFRAME_COUNT - 1;
+
+    static final int[] CENTER_ALPHA = new int[]{0, 255, 0, 255, 0, 255, 0};
+    static final int[] DOT_ALPHA = new int[]{255, 0, 155, 0, 155, 0, 255};
+
+    public interface Listener {
+        void onCollapsed();
+        void onExploded();
+        void onRepeat();
+        void onEnd();
+    }
+
+    private final Kinematics mVertices;
+    private final float[] mPhaseStart = new float[PHASE_COUNT];
+    private final float[] mPhaseDuration = new float[PHASE_COUNT];
+    private float mDuration;
+    private float mVertexDelay;
+    private float mCycleDuration;
+
+    private float mPlayTime = 0;
+    private int mPhase = PHASE_COLLAPSE;
+    private int mRepeat = 0;
+    private long mRepeatedCycles = 0;
+    private boolean isRunning = false;
+    private boolean isPaused = false;
+
+    private int mCenterAlpha = 0;
+    private int mDotAlpha = 255;
+
+    private Listener mListener;
+
+
+    public CollapseAnimation(int vertexCount) {
+        mVertices = new Kinematics(vertexCount, KEYFRAME_COUNT);
+        setTiming(1000, 200);
+    }
+
+    /**
+     * Keyframes of the vertex paths: start, middle and the center they collapse to.
+     */
+    public Kinematics getVertices() { return mVertices; }
+
+    public void setListener(Listener listener) { mListener = listener; }
+
+    /**
+     * Changes the number of vertices, their keyframes have to be set again.
+     */
+    public void setVertexCount(int count) {
+        mVertices.setCount(count);
+        setTiming(mDuration, mVertexDelay);
+    }
+
+    public int getVertexCount() { return mVertices.getCount(); }
+
+    /**
+     * Can be called while running: the play time is rescaled so the animation stays
+     * in the same phase at the same fraction of it, e.g. for live speed changes.
+     * @param duration time a vertex needs for its path, a fade takes twice as long
+     * @param vertexDelay start delay between two neighbour vertices
+     */
+    public void setTiming(float duration, float vertexDelay) {
+        int phase = mPhase;
+        float fraction = mPhaseDuration[phase] > 0 ? (mPlayTime - mPhaseStart[phase]) / mPhaseDuration[phase] : 0;
+
+        mDuration = duration;
+        mVertexDelay = vertexDelay;
+        for (int i = 0; i < mVertices.getCount(); i++) {
+            mVertices.setDelay(i, vertexDelay * i);
+        }
+        float move = duration + vertexDelay * Math.max(0, mVertices.getCount() - 1);
+        mPhaseDuration[PHASE_COLLAPSE] = move;
+        mPhaseDuration[PHASE_DOT_FADE] = duration * 2;
+        mPhaseDuration[PHASE_EXPLODE] = move;
+        mPhaseDuration[PHASE_CENTER_FADE] = duration * 2;
+
+        float start = 0;
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            mPhaseStart[i] = start;
+            start += mPhaseDuration[i];
+        }
+        mCycleDuration = start;
+        mPlayTime = mPhaseStart[phase] + Math.max(0, Math.min(1, fraction)) * mPhaseDuration[phase];
+        evaluate();
+    }
+
+    public float getDuration() { return mDuration; }
+
+    public float getVertexDelay() { return mVertexDelay; }
+
+    public float getCycleDuration() { return mCycleDuration; }
+
+    public float getPhaseStart(int phase) { return mPhaseStart[phase]; }
+
+    public float getPhaseDuration(int phase) { return mPhaseDuration[phase]; }
+
+    /**
+     * Number of cycles to play again after the first one, 0 repeats forever.
+     */
+    public void setRepeatCount(int repeat) { mRepeat = repeat; }
+
+    public int getRepeatCount() { return mRepeat; }
+
+    public void setRepeatedCycles(long cycles) { mRepeatedCycles = cycles; }
+
+    public long getRepeatedCycles() { return mRepeatedCycles; }
+
+    public float getPlayTime() { return mPlayTime; }
+
+    public int getPhase() { return mPhase; }
+
+    public int getCenterAlpha() { return mCenterAlpha; }
+
+    public int getDotAlpha() { return mDotAlpha; }
+
+    public boolean isRunning() { return isRunning; }
+
+    public boolean isPaused() { return isPaused; }
+
+
+    public void start() {
+        isRunning = true;
+        isPaused = false;
+        setPlayTime(0);
+    }
+
+    public void pause() {
+        if (!isRunning) return;
+        isRunning = false;
+        isPaused = true;
+    }
+
+    public void resume() {
+        if (!isPaused) return;
+        isPaused = false;
+        isRunning = true;
+    }
+
+    public void stop() {
+        isRunning = false;
+        isPaused = false;
+    }
+
+    /**
+     * Jumps to a play time inside the cycle without firing any listener callbacks.
+     */
+    public void setPlayTime(float playTime) {
+        if (playTime < 0) playTime = 0;
+        if (playTime > mCycleDuration) playTime = mCycleDuration;
+        mPlayTime = playTime;
+        mPhase = PHASE_COUNT - 1;
+        for (int i = 0; i < PHASE_COUNT - 1; i++) {
+            if (playTime < mPhaseStart[i + 1]) {
+                mPhase = i;
+                break;
+            }
+        }
+        evaluate();
+    }
+
+    /**
+     * Moves the play time forward while running, calls the listener for every
+     * phase or cycle end that was passed and repeats or ends at the end of the cycle.
+     */
+    public void advance(float delta) {
+        if (!isRunning || delta <= 0) return;
+
+        float time = mPlayTime + delta;
+        while (isRunning && time >= mPhaseStart[mPhase] + mPhaseDuration[mPhase]) {
+            if (mPhase == PHASE_COLLAPSE) {
+                if (mListener != null) mListener.onCollapsed();
+            } else if (mPhase == PHASE_EXPLODE) {
+                if (mListener != null) mListener.onExploded();
+            }
+
+            if (mPhase < PHASE_COUNT - 1) {
+                mPhase++;
+            } else if (mRepeat == 0 || mRepeatedCycles < mRepeat) {
+                mRepeatedCycles++;
+                mPhase = PHASE_COLLAPSE;
+                time = mCycleDuration > 0 ? time - mCycleDuration : 0;
+                if (mListener != null) mListener.onRepeat();
+            } else {
+                time = mCycleDuration;
+                isRunning = false;
+                if (mListener != null) mListener.onEnd();
+            }
+        }
+
+        mPlayTime = time;
+        evaluate();
+    }
+
+    /**
+     * Recomputes positions and alphas for the current play time, e.g. after the keyframes changed.
+     */
+    public void evaluate() {
+        float local = mPlayTime - mPhaseStart[mPhase];
+        mCenterAlpha = 0;
+        mDotAlpha = 255;
+
+        switch (mPhase) {
+            case PHASE_COLLAPSE:
+                mVertices.evaluate(local, mDuration, false, Kinematics.INTERPOLATOR_ACCELERATE_DECELERATE);
+                break;
+
+            case PHASE_DOT_FADE:
+                mVertices.moveToKeyframe(KEYFRAME_END);
+                mDotAlpha = keyframeValue(DOT_ALPHA, local / mPhaseDuration[PHASE_DOT_FADE]);
+                break;
+
+            case PHASE_EXPLODE:
+                mVertices.evaluate(local, mDuration, true, Kinematics.INTERPOLATOR_ACCELERATE_DECELERATE);
+                break;
+
+            case PHASE_CENTER_FADE:
+                mVertices.moveToKeyframe(KEYFRAME_START);
+                mCenterAlpha = keyframeValue(CENTER_ALPHA, local / mPhaseDuration[PHASE_CENTER_FADE]);
+                break;
+        }
+    }
+
+    /**
+     * Eased int keyframes, the same values ObjectAnimator.ofInt(target, name, values) produces.
+     */
+    public static int keyframeValue(int[] values, float fraction) {
+        if (!(fraction > 0)) fraction = 0;
+        if (fraction > 1) fraction = 1;
+        fraction = Kinematics.ease(fraction);
+
+        int intervals = values.length - 1;
+        int index = (int) (fraction * intervals);
+        if (index >= intervals) index = intervals - 1;
+        float intervalFraction = fraction * intervals - index;
+        return (int) (values[index] + intervalFraction * (values[index + 1] - values[index]));
+    }
+}
@@ -0,0 +1,306 @@
+package com.stang.customview.core;
+
+/**
+ * Preallocated buffers for Canvas.drawLines(float[], ...) and Canvas.drawPoints(float[], ...).
+ * The line buffer holds x0, y0, x1, y1 for every edge, the point buffer x, y for every vertex.
+ * update() only rewrites the entries of vertices that moved since the last update.
+ * The edges follow one of the topologies below and never exceed the edge budget:
+ * a complete graph over budget falls back to a ring, any other topology is cut at the budget.
+ * It also collects the bounds of everything update() changed, old and new positions of the moved
+ * vertices and the edges they belong to, so views can invalidate just that area.
+ * Positions can be given in any coordinate space, e.g. normalized [0, 1], and are mapped to pixels
+ * by a scale and offset while they are copied; the buffers and dirty bounds are in the mapped space.
+ */
+
+public class DrawList {
+    public static final int TOPOLOGY_COMPLETE = 0;
+    public static final int TOPOLOGY_RING = 1;
+    public static final int TOPOLOGY_STAR = 2;
+
+    public static final int DEFAULT_EDGE_BUDGET = 2048;
+
+    private int mTopology = TOPOLOGY_COMPLETE;
+    private int mVertexCount = 0;
+    private int mEdgeCount = 0;
+    private int[] mEdgeFrom = new int[0];
+    private int[] mEdgeTo = new int[0];
+
+    private float[] mLines = new float[0];
+    private float[] mPoints = new float[0];
+    private float[] mLastX = new float[0];
+    private float[] mLastY = new float[0];
+    private boolean isDirty = true;
+
+    private float mScaleX = 1;
+    private float mScaleY = 1;
+    private float mOffsetX = 0;
+    private float mOffsetY = 0;
+    private float mHubX = 0;
+    private float mHubY = 0;
+
+    // empty while left > right
+    private float mDirtyLeft = Float.POSITIVE_INFINITY;
+    private float mDirtyTop = Float.POSITIVE_INFINITY;
+    private float mDirtyRight = Float.NEGATIVE_INFINITY;
+    private float mDirtyBottom = Float.NEGATIVE_INFINITY;
+
+    // offsets of every vertex's x in mLines, grouped per vertex (CSR layout)
+    private int[] mIncidentStart = new int[1];
+    private int[] mIncidentOffset = new int[0];
+
+
+    /**
+     * Every vertex connected with every other one, n * (n - 1) / 2 edges, without a budget.
+     */
+    public void setCompleteGraph(int vertexCount) {
+        setTopology(TOPOLOGY_COMPLETE, vertexCount, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Builds the edges of a topology: the complete graph, a ring through all vertices in order
+     * or a star with an edge from every vertex to the hub (see setHub).
+     * Storage only grows, so switching back and forth does not allocate.
+     */
+    public void setTopology(int topology, int vertexCount, int edgeBudget) {
+        if (vertexCount < 0) {
+            throw new IllegalArgumentException("vertexCount < 0: " + vertexCount);
+        }
+        if (edgeBudget < 0) edgeBudget = 0;
+        if (topology == TOPOLOGY_COMPLETE && getEdgeCount(TOPOLOGY_COMPLETE, vertexCount) > edgeBudget) {
+            topology = TOPOLOGY_RING;
+        }
+        int edges = (int) Math.min(getEdgeCount(topology, vertexCount), edgeBudget);
+        ensureEdgeCapacity(edges);
+
+        int e = 0;
+        switch (topology) {
+            case TOPOLOGY_COMPLETE:
+                for (int i = 0; i < vertexCount && e < edges; i++) {
+                    for (int j = i + 1; j < vertexCount && e < edges; j++) {
+                        addEdge(e++, i, j);
+                    }
+                }
+                break;
+
+            case TOPOLOGY_RING:
+                for (int i = 0; i < edges; i++) {
+                    addEdge(e++, i, (i + 1) % vertexCount);
+                }
+                break;
+
+            case TOPOLOGY_STAR:
+                for (int i = 0; i < edges; i++) {
+                    addEdge(e++, i, vertexCount);
+                }
+                break;
+
+            default:
+                throw new IllegalArgumentException("unknown topology: " + topology);
+        }
+        mTopology = topology;
+        buildIncidence(vertexCount, e, topology == TOPOLOGY_STAR ? vertexCount + 1 : vertexCount);
+    }
+
+    /**
+     * Number of edges of a topology before the budget is applied.
+     */
+    public static long getEdgeCount(int topology, int vertexCount) {
+        if (vertexCount < 2) return 0;
+        switch (topology) {
+            case TOPOLOGY_COMPLETE:
+                return (long) vertexCount * (vertexCount - 1) / 2;
+            case TOPOLOGY_RING:
+                return vertexCount == 2 ? 1 : vertexCount;
+            default:
+                return vertexCount;
+        }
+    }
+
+    /**
+     * The topology in use, TOPOLOGY_RING when a complete graph did not fit the budget.
+     */
+    public int getTopology() { return mTopology; }
+
+    /**
+     * Position of the star center, the end of every TOPOLOGY_STAR edge, in the same space as the vertices.
+     */
+    public void setHub(float x, float y) {
+        mHubX = x;
+        mHubY = y;
+        writeHub();
+    }
+
+    /**
+     * Maps every position to x * scaleX + offsetX, y * scaleY + offsetY.
+     * A change rewrites all entries on the next update(), nothing else has to be recomputed.
+     */
+    public void setTransform(float scaleX, float scaleY, float offsetX, float offsetY) {
+        if (scaleX == mScaleX && scaleY == mScaleY && offsetX == mOffsetX && offsetY == mOffsetY) return;
+        mScaleX = scaleX;
+        mScaleY = scaleY;
+        mOffsetX = offsetX;
+        mOffsetY = offsetY;
+        writeHub();
+        isDirty = true;
+    }
+
+    public int getVertexCount() { return mVertexCount; }
+
+    public int getEdgeCount() { return mEdgeCount; }
+
+    public int getEdgeFrom(int edge) { return mEdgeFrom[edge]; }
+
+    public int getEdgeTo(int edge) { return mEdgeTo[edge]; }
+
+    /**
+     * Line buffer for Canvas.drawLines, use getLineFloatCount() as the count.
+     */
+    public float[] getLines() { return mLines; }
+
+    public int getLineFloatCount() { return mEdgeCount * 4; }
+
+    /**
+     * Point buffer for Canvas.drawPoints, use getPointFloatCount() as the count.
+     */
+    public float[] getPoints() { return mPoints; }
+
+    public int getPointFloatCount() { return mVertexCount * 2; }
+
+    /**
+     * Makes the next update() rewrite every entry.
+     */
+    public void invalidate() { isDirty = true; }
+
+    public boolean hasDirtyBounds() { return mDirtyLeft <= mDirtyRight; }
+
+    public float getDirtyLeft() { return mDirtyLeft; }
+
+    public float getDirtyTop() { return mDirtyTop; }
+
+    public float getDirtyRight() { return mDirtyRight; }
+
+    public float getDirtyBottom() { return mDirtyBottom; }
+
+    public void resetDirtyBounds() {
+        mDirtyLeft = Float.POSITIVE_INFINITY;
+        mDirtyTop = Float.POSITIVE_INFINITY;
+        mDirtyRight = Float.NEGATIVE_INFINITY;
+        mDirtyBottom = Float.NEGATIVE_INFINITY;
+    }
+
+    public void includeDirty(float x, float y) {
+        if (x < mDirtyLeft) mDirtyLeft = x;
+        if (x > mDirtyRight) mDirtyRight = x;
+        if (y < mDirtyTop) mDirtyTop = y;
+        if (y > mDirtyBottom) mDirtyBottom = y;
+    }
+
+    /**
+     * Adds every vertex to the dirty bounds, e.g. when the dots changed their alpha.
+     */
+    public void includePoints() {
+        for (int v = 0; v < mVertexCount; v++) {
+            includeDirty(mPoints[v * 2], mPoints[v * 2 + 1]);
+        }
+    }
+
+    /**
+     * Copies the positions of moved vertices into the buffers and adds what changed to the dirty bounds.
+     * After a full rewrite (setTopology, invalidate) the old positions are unknown: only the new ones are added.
+     * @return true if any vertex moved
+     */
+    public boolean update(float[] xs, float[] ys) {
+        final float[] lines = mLines;
+        final float[] points = mPoints;
+        boolean moved = false;
+
+        for (int v = 0; v < mVertexCount; v++) {
+            if (!isDirty && xs[v] == mLastX[v] && ys[v] == mLastY[v]) continue;
+
+            float x = xs[v] * mScaleX + mOffsetX;
+            float y = ys[v] * mScaleY + mOffsetY;
+            if (!isDirty) includeDirty(points[v * 2], points[v * 2 + 1]);
+            includeDirty(x, y);
+            mLastX[v] = xs[v];
+            mLastY[v] = ys[v];
+            points[v * 2] = x;
+            points[v * 2 + 1] = y;
+            for (int k = mIncidentStart[v]; k < mIncidentStart[v + 1]; k++) {
+                int offset = mIncidentOffset[k];
+                lines[offset] = x;
+                lines[offset + 1] = y;
+                // the other end of the edge, x0 <-> x1
+                int other = (offset & 2) == 0 ? offset + 2 : offset - 2;
+                includeDirty(lines[other], lines[other + 1]);
+            }
+            moved = true;
+        }
+        isDirty = false;
+        return moved;
+    }
+
+
+    private void writeHub() {
+        int hub = mVertexCount;
+        if (hub + 1 >= mIncidentStart.length) return;
+        float x = mHubX * mScaleX + mOffsetX;
+        float y = mHubY * mScaleY + mOffsetY;
+        for (int k = mIncidentStart[hub]; k < mIncidentStart[hub + 1]; k++) {
+            int offset = mIncidentOffset[k];
+            mLines[offset] = x;
+            mLines[offset + 1] = y;
+        }
+    }
+
+    private void addEdge(int edge, int from, int to) {
+        mEdgeFrom[edge] = from;
+        mEdgeTo[edge] = to;
+    }
+
+    private void ensureEdgeCapacity(int edges) {
+        if (mEdgeFrom.length < edges) {
+            mEdgeFrom = new int[edges];
+            mEdgeTo = new int[edges];
+        }
+    }
+
+    // edges are already in mEdgeFrom / mEdgeTo, nodes counts the star hub as well
+    private void buildIncidence(int vertexCount, int edgeCount, int nodes) {
+        mVertexCount = vertexCount;
+        mEdgeCount = edgeCount;
+
+        if (mLines.length < edgeCount * 4) mLines = new float[edgeCount * 4];
+        if (mIncidentOffset.length < edgeCount * 2) mIncidentOffset = new int[edgeCount * 2];
+        if (mPoints.length < vertexCount * 2) mPoints = new float[vertexCount * 2];
+        if (mLastX.length < vertexCount) {
+            mLastX = new float[vertexCount];
+            mLastY = new float[vertexCount];
+        }
+        if (mIncidentStart.length < nodes + 2) mIncidentStart = new int[nodes + 2];
+
+        // count the degree of every vertex, then turn the counts into start indices
+        for (int v = 0; v < mIncidentStart.length; v++) {
+            mIncidentStart[v] = 0;
+        }
+        for (int e = 0; e < edgeCount; e++) {
+            mIncidentStart[mEdgeFrom[e] + 1]++;
+            mIncidentStart[mEdgeTo[e] + 1]++;
+        }
+        for (int v = 0; v < nodes; v++) {
+            mIncidentStart[v + 1] += mIncidentStart[v];
+        }
+        // fill the offsets, the start indices serve as write cursors
+        for (int e = 0; e < edgeCount; e++) {
+            mIncidentOffset[mIncidentStart[mEdgeFrom[e]]++] = e * 4;
+            mIncidentOffset[mIncidentStart[mEdgeTo[e]]++] = e * 4 + 2;
+        }
+        // every cursor ended at the start of the next vertex, shift them back
+        for (int v = nodes; v > 0; v--) {
+            mIncidentStart[v] = mIncidentStart[v - 1];
+        }
+        mIncidentStart[0] = 0;
+
+        writeHub();
+        isDirty = true;
+    }
+}
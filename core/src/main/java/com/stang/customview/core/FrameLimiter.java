@@ -0,0 +1,55 @@
+package com.stang.customview.core;
+
+/**
+ * Thins out vsync frames to a maximum frame rate.
+ * A frame is let through once a frame interval has passed since the last one,
+ * minus some slack for vsync jitter, so a 30 fps cap takes every second frame of a 60 Hz display.
+ * Animations using it have to be time based: skipped frames just make the next step larger.
+ */
+
+public class FrameLimiter {
+    public static final int NO_LIMIT = 0;
+
+    // a quarter of a 60 Hz frame
+    private static final long SLACK_NANOS = 4000000L;
+
+    private int mMaxFps = NO_LIMIT;
+    private long mMinInterval = 0;
+    private long mLastFrameTimeNanos = 0;
+    private boolean hasFrame = false;
+    private long mSkippedCount = 0;
+
+
+    /**
+     * @param maxFps frames per second to let through at most, NO_LIMIT for every frame
+     */
+    public void setMaxFps(int maxFps) {
+        if (maxFps == mMaxFps) return;
+        mMaxFps = maxFps;
+        mMinInterval = maxFps > 0 ? Math.max(0, 1000000000L / maxFps - SLACK_NANOS) : 0;
+    }
+
+    public int getMaxFps() { return mMaxFps; }
+
+    public long getSkippedCount() { return mSkippedCount; }
+
+    /**
+     * Forgets the last frame, the next one is let through.
+     */
+    public void reset() {
+        hasFrame = false;
+    }
+
+    /**
+     * @return true if the frame should be processed
+     */
+    public boolean accept(long frameTimeNanos) {
+        if (hasFrame && frameTimeNanos - mLastFrameTimeNanos < mMinInterval) {
+            mSkippedCount++;
+            return false;
+        }
+        hasFrame = true;
+        mLastFrameTimeNanos = frameTimeNanos;
+        return true;
+    }
+}
@@ -0,0 +1,87 @@
+package com.stang.customview.core;
+
+/**
+ * Frame timing of one animated view: draw time, tick to draw latency, missed frames and cycles.
+ * Times are recorded in microseconds into fixed size histograms, nothing is allocated per frame.
+ * Read it with snapshot(), which copies everything into a reusable Snapshot.
+ */
+
+public class FrameMetrics {
+
+    public static class Snapshot {
+        public final Histogram drawTimeMicros = new Histogram();
+        public final Histogram latencyMicros = new Histogram();
+        public long frameCount;
+        public long missedFrameCount;
+        public long cycleCount;
+    }
+
+    private final Histogram mDrawTime = new Histogram();
+    private final Histogram mLatency = new Histogram();
+    private long mFrameCount = 0;
+    private long mMissedFrameCount = 0;
+    private long mCycleCount = 0;
+
+    private long mLastFrameTimeNanos = 0;
+    private boolean hasFrame = false;
+    // a frame was ticked and not drawn yet
+    private boolean isFramePending = false;
+
+
+    /**
+     * A frame was processed. Gaps of more than 1.5 expected intervals count the frames in between as missed.
+     */
+    public void onFrame(long frameTimeNanos, long expectedIntervalNanos) {
+        if (hasFrame && expectedIntervalNanos > 0) {
+            long gap = frameTimeNanos - mLastFrameTimeNanos;
+            if (gap * 2 > expectedIntervalNanos * 3) {
+                mMissedFrameCount += Math.round(gap / (double) expectedIntervalNanos) - 1;
+            }
+        }
+        hasFrame = true;
+        isFramePending = true;
+        mLastFrameTimeNanos = frameTimeNanos;
+        mFrameCount++;
+    }
+
+    /**
+     * The next frame starts a new run, e.g. after the view was hidden, the gap is not a miss.
+     */
+    public void onPause() {
+        hasFrame = false;
+        isFramePending = false;
+    }
+
+    /**
+     * @param startNanos System.nanoTime() when onDraw started, the same clock as the frame times
+     */
+    public void onDraw(long startNanos, long endNanos) {
+        mDrawTime.record((endNanos - startNanos) / 1000);
+        if (isFramePending) {
+            mLatency.record((startNanos - mLastFrameTimeNanos) / 1000);
+            isFramePending = false;
+        }
+    }
+
+    public void onCycle() { mCycleCount++; }
+
+    public void reset() {
+        mDrawTime.reset();
+        mLatency.reset();
+        mFrameCount = 0;
+        mMissedFrameCount = 0;
+        mCycleCount = 0;
+        hasFrame = false;
+        isFramePending = false;
+    }
+
+    public Snapshot snapshot(Snapshot out) {
+        if (out == null) out = new Snapshot();
+        mDrawTime.copyTo(out.drawTimeMicros);
+        mLatency.copyTo(out.latencyMicros);
+        out.frameCount = mFrameCount;
+        out.missedFrameCount = mMissedFrameCount;
+        out.cycleCount = mCycleCount;
+        return out;
+    }
+}
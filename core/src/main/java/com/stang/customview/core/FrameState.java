@@ -0,0 +1,72 @@
+package com.stang.customview.core;
+
+/**
+ * Everything needed to draw one frame of a figure: vertex positions, alphas and colors.
+ * Positions are kept in primitive arrays that only grow, so filling a state every frame allocates nothing
+ * once the vertex count settled. Passed between the simulation and the drawing through a FrameStateBuffer.
+ */
+
+public class FrameState {
+    private float[] mXs;
+    private float[] mYs;
+    private int mCount = 0;
+    private int mCenterAlpha = 0;
+    private int mDotAlpha = 0;
+    private int mLineColor = 0;
+    private int mDotColor = 0;
+    private long mFrameTimeNanos = 0;
+
+
+    public FrameState(int capacity) {
+        mXs = new float[capacity];
+        mYs = new float[capacity];
+    }
+
+    /**
+     * Copies the first count positions, the arrays grow if needed.
+     */
+    public void setPositions(float[] xs, float[] ys, int count) {
+        if (count > mXs.length) {
+            mXs = new float[count];
+            mYs = new float[count];
+        }
+        System.arraycopy(xs, 0, mXs, 0, count);
+        System.arraycopy(ys, 0, mYs, 0, count);
+        mCount = count;
+    }
+
+    public void setPositions(Kinematics vertices) {
+        setPositions(vertices.getXs(), vertices.getYs(), vertices.getCount());
+    }
+
+    public void setAlphas(int centerAlpha, int dotAlpha) {
+        mCenterAlpha = centerAlpha;
+        mDotAlpha = dotAlpha;
+    }
+
+    public void setColors(int lineColor, int dotColor) {
+        mLineColor = lineColor;
+        mDotColor = dotColor;
+    }
+
+    public void setFrameTimeNanos(long frameTimeNanos) { mFrameTimeNanos = frameTimeNanos; }
+
+    /**
+     * May be longer than getCount().
+     */
+    public float[] getXs() { return mXs; }
+
+    public float[] getYs() { return mYs; }
+
+    public int getCount() { return mCount; }
+
+    public int getCenterAlpha() { return mCenterAlpha; }
+
+    public int getDotAlpha() { return mDotAlpha; }
+
+    public int getLineColor() { return mLineColor; }
+
+    public int getDotColor() { return mDotColor; }
+
+    public long getFrameTimeNanos() { return mFrameTimeNanos; }
+}
@@ -0,0 +1,64 @@
+package com.stang.customview.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock free triple buffer of frame states between one simulation thread and one drawing thread.
+ * The simulation fills getWriteState() completely and publishes it with publish(), a single atomic swap.
+ * The drawing takes the latest published state with getReadState() and owns it until its next call,
+ * so it always sees a whole frame and neither side ever waits or allocates.
+ */
+
+public class FrameStateBuffer {
+    private static final int INDEX_MASK = 3;
+    // set on the middle index when it holds a frame the reader has not taken yet
+    private static final int FRESH = 4;
+
+    private final FrameState[] mStates = new FrameState[3];
+    private final AtomicInteger mMiddle = new AtomicInteger(1);
+    // owned by the writer
+    private int mBack = 0;
+    // owned by the reader
+    private int mFront = 2;
+
+
+    /**
+     * @param capacity vertices each state holds before it has to grow
+     */
+    public FrameStateBuffer(int capacity) {
+        for (int i = 0; i < mStates.length; i++) {
+            mStates[i] = new FrameState(capacity);
+        }
+    }
+
+    /**
+     * Writer side: the state to fill for the next frame. It holds an older frame, every field has to be set.
+     */
+    public FrameState getWriteState() {
+        return mStates[mBack];
+    }
+
+    /**
+     * Writer side: hands the filled state over, a frame the reader did not take yet is dropped.
+     */
+    public void publish() {
+        mBack = mMiddle.getAndSet(mBack | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Reader side: the latest published state, or the one returned last time if nothing new was published.
+     */
+    public FrameState getReadState() {
+        if ((mMiddle.get() & FRESH) != 0) {
+            mFront = mMiddle.getAndSet(mFront) & INDEX_MASK;
+        }
+        return mStates[mFront];
+    }
+
+    /**
+     * Can be called from any thread.
+     */
+    public boolean hasNewFrame() {
+        return (mMiddle.get() & FRESH) != 0;
+    }
+}
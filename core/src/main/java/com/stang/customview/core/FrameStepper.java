@@ -0,0 +1,74 @@
+package com.stang.customview.core;
+
+/**
+ * Headless frame source: moves a VirtualClock by a fixed frame interval and delivers one frame per step,
+ * the way Choreographer would, without a display or a looper. Nothing is allocated per step,
+ * so allocation measured around stepping belongs to the callback.
+ */
+
+public class FrameStepper {
+    public static final long DEFAULT_FRAME_INTERVAL_NANOS = 16666667;
+
+    public interface Callback {
+        void doFrame(long frameTimeNanos);
+    }
+
+    private final VirtualClock mClock;
+    private final Callback mCallback;
+    private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+    private long mFrameCount = 0;
+
+
+    public FrameStepper(VirtualClock clock, Callback callback) {
+        mClock = clock;
+        mCallback = callback;
+    }
+
+    /**
+     * E.g. a whole number of milliseconds to land on exact animation times.
+     */
+    public void setFrameIntervalNanos(long frameIntervalNanos) {
+        if (frameIntervalNanos <= 0) {
+            throw new IllegalArgumentException("frame interval must be positive: " + frameIntervalNanos);
+        }
+        mFrameIntervalNanos = frameIntervalNanos;
+    }
+
+    public long getFrameIntervalNanos() { return mFrameIntervalNanos; }
+
+    public VirtualClock getClock() { return mClock; }
+
+    public long getFrameCount() { return mFrameCount; }
+
+    /**
+     * Delivers a frame at the current time without moving the clock, e.g. the first one after a start.
+     */
+    public void frame() {
+        mFrameCount++;
+        mCallback.doFrame(mClock.nanoTime());
+    }
+
+    public void step() {
+        mClock.advanceNanos(mFrameIntervalNanos);
+        frame();
+    }
+
+    public void step(int frames) {
+        for (int i = 0; i < frames; i++) {
+            step();
+        }
+    }
+
+    /**
+     * Steps whole frames as long as they do not go past the given time.
+     */
+    public void stepUntil(long timeNanos) {
+        while (mClock.nanoTime() + mFrameIntervalNanos <= timeNanos) {
+            step();
+        }
+    }
+
+    public void stepMillis(long millis) {
+        stepUntil(mClock.nanoTime() + millis * 1000000L);
+    }
+}
@@ -0,0 +1,83 @@
+package com.stang.customview.core;
+
+/**
+ * Fixed size histogram of non negative values with power of two buckets:
+ * bucket 0 holds 0 and 1, bucket b holds [2^b, 2^(b + 1)), the last one everything above.
+ * record() does not allocate, percentiles are accurate to the bucket, i.e. within a factor of two.
+ */
+
+public class Histogram {
+    public static final int BUCKET_COUNT = 32;
+
+    private final long[] mBuckets = new long[BUCKET_COUNT];
+    private long mCount = 0;
+    private long mSum = 0;
+    private long mMin = Long.MAX_VALUE;
+    private long mMax = 0;
+
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        mBuckets[bucketOf(value)]++;
+        mCount++;
+        mSum += value;
+        if (value < mMin) mMin = value;
+        if (value > mMax) mMax = value;
+    }
+
+    public long getCount() { return mCount; }
+
+    public long getSum() { return mSum; }
+
+    public long getMin() { return mCount == 0 ? 0 : mMin; }
+
+    public long getMax() { return mMax; }
+
+    public long getMean() { return mCount == 0 ? 0 : mSum / mCount; }
+
+    public long getBucketCount(int bucket) { return mBuckets[bucket]; }
+
+    /**
+     * Upper bound of the bucket holding the given percentile, never above the maximum.
+     * @param percentile 0..100
+     */
+    public long getPercentile(float percentile) {
+        if (mCount == 0) return 0;
+        long rank = (long) Math.ceil(mCount * Math.min(100, Math.max(0, percentile)) / 100.0);
+        if (rank < 1) rank = 1;
+
+        long seen = 0;
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            seen += mBuckets[b];
+            if (seen >= rank) {
+                long upper = b == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << (b + 1)) - 1;
+                return Math.min(upper, mMax);
+            }
+        }
+        return mMax;
+    }
+
+    public void reset() {
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            mBuckets[b] = 0;
+        }
+        mCount = 0;
+        mSum = 0;
+        mMin = Long.MAX_VALUE;
+        mMax = 0;
+    }
+
+    public void copyTo(Histogram other) {
+        System.arraycopy(mBuckets, 0, other.mBuckets, 0, BUCKET_COUNT);
+        other.mCount = mCount;
+        other.mSum = mSum;
+        other.mMin = mMin;
+        other.mMax = mMax;
+    }
+
+
+    static int bucketOf(long value) {
+        if (value <= 1) return 0;
+        return Math.min(BUCKET_COUNT - 1, 63 - Long.numberOfLeadingZeros(value));
+    }
+}
@@ -0,0 +1,160 @@
+package com.stang.customview.core;
+
+/**
+ * Positions of N dots moving along polyline paths.
+ * Every dot has the same number of keyframes; keyframes, delays and the current positions
+ * are kept in flat float arrays and evaluate() updates all dots in one pass without allocating.
+ * A dot's path is walked with equal time per segment, like an ObjectAnimator with several values.
+ */
+
+public class Kinematics {
+    public static final int INTERPOLATOR_LINEAR = 0;
+    public static final int INTERPOLATOR_ACCELERATE_DECELERATE = 1;
+
+    private static final int EASE_TABLE_SIZE = 256;
+    private static final float[] EASE_TABLE = new float[EASE_TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= EASE_TABLE_SIZE; i++) {
+            // same curve as android.view.animation.AccelerateDecelerateInterpolator
+            EASE_TABLE[i] = (float) (Math.cos((i / (double) EASE_TABLE_SIZE + 1) * Math.PI) / 2.0 + 0.5);
+        }
+    }
+
+    private final int mKeyframes;
+    private int mCount;
+
+    private float[] mKeyX;
+    private float[] mKeyY;
+    private float[] mDelay;
+    private float[] mX;
+    private float[] mY;
+
+
+    public Kinematics(int count, int keyframes) {
+        if (keyframes < 2) {
+            throw new IllegalArgumentException("at least two keyframes are required: " + keyframes);
+        }
+        mKeyframes = keyframes;
+        mKeyX = new float[0];
+        mKeyY = new float[0];
+        mDelay = new float[0];
+        mX = new float[0];
+        mY = new float[0];
+        setCount(count);
+    }
+
+    /**
+     * Changes the number of dots. Storage only grows, existing dots keep their keyframes.
+     */
+    public void setCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count < 0: " + count);
+        }
+        if (count > mX.length) {
+            mKeyX = grow(mKeyX, count * mKeyframes);
+            mKeyY = grow(mKeyY, count * mKeyframes);
+            mDelay = grow(mDelay, count);
+            mX = grow(mX, count);
+            mY = grow(mY, count);
+        }
+        mCount = count;
+    }
+
+    public int getCount() { return mCount; }
+
+    public int getKeyframeCount() { return mKeyframes; }
+
+    public void setKeyframe(int dot, int index, float x, float y) {
+        int k = dot * mKeyframes + index;
+        mKeyX[k] = x;
+        mKeyY[k] = y;
+    }
+
+    public float getKeyframeX(int dot, int index) { return mKeyX[dot * mKeyframes + index]; }
+
+    public float getKeyframeY(int dot, int index) { return mKeyY[dot * mKeyframes + index]; }
+
+    public void setDelay(int dot, float delay) { mDelay[dot] = delay; }
+
+    public float getDelay(int dot) { return mDelay[dot]; }
+
+    public float getX(int dot) { return mX[dot]; }
+
+    public float getY(int dot) { return mY[dot]; }
+
+    /**
+     * Backing array of the current x positions, valid for indices below getCount().
+     */
+    public float[] getXs() { return mX; }
+
+    /**
+     * Backing array of the current y positions, valid for indices below getCount().
+     */
+    public float[] getYs() { return mY; }
+
+    /**
+     * Puts every dot at one of its keyframes.
+     */
+    public void moveToKeyframe(int index) {
+        for (int i = 0; i < mCount; i++) {
+            int k = i * mKeyframes + index;
+            mX[i] = mKeyX[k];
+            mY[i] = mKeyY[k];
+        }
+    }
+
+    /**
+     * Evaluates all positions at the given time.
+     * Dot i is at the start of its path until time reaches its delay and at the end
+     * once time passes delay + duration. With reverse set the path is walked from the last keyframe.
+     */
+    public void evaluate(float time, float duration, boolean reverse, int interpolator) {
+        final int keyframes = mKeyframes;
+        final int segments = keyframes - 1;
+        final float invDuration = duration > 0 ? 1f / duration : 0f;
+
+        for (int i = 0; i < mCount; i++) {
+            float f = duration > 0 ? (time - mDelay[i]) * invDuration : (time >= mDelay[i] ? 1f : 0f);
+            if (f < 0f) f = 0f;
+            else if (f > 1f) f = 1f;
+
+            if (interpolator == INTERPOLATOR_ACCELERATE_DECELERATE) {
+                f = ease(f);
+            }
+            if (reverse) {
+                f = 1f - f;
+            }
+
+            float position = f * segments;
+            int segment = (int) position;
+            if (segment >= segments) segment = segments - 1;
+            float local = position - segment;
+
+            int k = i * keyframes + segment;
+            float x0 = mKeyX[k];
+            float y0 = mKeyY[k];
+            mX[i] = x0 + (mKeyX[k + 1] - x0) * local;
+            mY[i] = y0 + (mKeyY[k + 1] - y0) * local;
+        }
+    }
+
+    /**
+     * AccelerateDecelerateInterpolator curve from a lookup table, no double math.
+     */
+    public static float ease(float f) {
+        float position = f * EASE_TABLE_SIZE;
+        int index = (int) position;
+        if (index >= EASE_TABLE_SIZE) return EASE_TABLE[EASE_TABLE_SIZE];
+        if (index < 0) return EASE_TABLE[0];
+        float local = position - index;
+        return EASE_TABLE[index] + (EASE_TABLE[index + 1] - EASE_TABLE[index]) * local;
+    }
+
+
+    private static float[] grow(float[] array, int size) {
+        float[] result = new float[size];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+package com.stang.customview.core;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock free hand over of the latest value from any number of producer threads to one consumer.
+ * Producers never block: offer() merges the update into what is already pending with a CAS loop,
+ * and only the offer that fills an empty slot returns true, so the consumer is woken up once per batch.
+ * Values must not be changed after they were offered; the merger has to return a new value.
+ */
+
+public class PendingSlot<T> {
+
+    public interface Merger<T> {
+        /**
+         * @return a new value with update applied on top of pending, neither may be modified
+         */
+        T merge(T pending, T update);
+    }
+
+    private final AtomicReference<T> mPending = new AtomicReference<>();
+    private final Merger<T> mMerger;
+
+
+    /**
+     * @param merger combines updates, null keeps only the latest one
+     */
+    public PendingSlot(Merger<T> merger) {
+        mMerger = merger;
+    }
+
+    /**
+     * Can be called from any thread.
+     * @return true if the slot was empty and the consumer has to be scheduled
+     */
+    public boolean offer(T update) {
+        while (true) {
+            T pending = mPending.get();
+            T next = pending == null || mMerger == null ? update : mMerger.merge(pending, update);
+            if (mPending.compareAndSet(pending, next)) {
+                return pending == null;
+            }
+        }
+    }
+
+    /**
+     * Removes and returns everything offered so far, null if nothing is pending.
+     */
+    public T take() {
+        return mPending.getAndSet(null);
+    }
+
+    public boolean isEmpty() { return mPending.get() == null; }
+}
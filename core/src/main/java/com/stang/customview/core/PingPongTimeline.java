@@ -0,0 +1,152 @@
+package com.stang.customview.core;
+
+/**
+ * A value moving back and forth between a minimum and a maximum at a constant rate.
+ * The value is computed from the elapsed monotonic time since an anchor instead of adding a step
+ * per frame, so the speed does not depend on the frame rate and a stalled thread simply jumps ahead.
+ * Every bound crossed in between is reported in order and re-anchors the value at the exact crossing time.
+ * The first update() after start() or resume() only sets the anchor: time spent paused does not count.
+ */
+
+public class PingPongTimeline {
+    public static final int DIRECTION_UP = 1;
+    public static final int DIRECTION_DOWN = -1;
+
+    public interface Listener {
+        /**
+         * @return true to turn around, false to stop at the maximum
+         */
+        boolean onMaxReached();
+
+        /**
+         * @return true to turn around, false to stop at the minimum
+         */
+        boolean onMinReached();
+    }
+
+    private float mMin;
+    private float mMax;
+    // units per millisecond
+    private float mRate;
+    private int mDirection = DIRECTION_UP;
+    private float mValue;
+
+    private float mAnchorValue;
+    private long mAnchorTimeNanos;
+    private long mLastTimeNanos;
+    private boolean isAnchored = false;
+    private boolean isRunning = false;
+
+    private Listener mListener;
+
+
+    public PingPongTimeline(float min, float max, float rate) {
+        setRange(min, max);
+        mRate = rate;
+        mValue = min;
+    }
+
+    public void setListener(Listener listener) { mListener = listener; }
+
+    public void setRange(float min, float max) {
+        if (max < min) {
+            throw new IllegalArgumentException("max < min: " + max + " < " + min);
+        }
+        mMin = min;
+        mMax = max;
+    }
+
+    public float getMin() { return mMin; }
+
+    public float getMax() { return mMax; }
+
+    /**
+     * Changes the speed from the current value on, what has been played so far is kept.
+     */
+    public void setRate(float rate) {
+        reanchor();
+        mRate = rate;
+    }
+
+    public float getRate() { return mRate; }
+
+    public void setDirection(int direction) {
+        reanchor();
+        mDirection = direction < 0 ? DIRECTION_DOWN : DIRECTION_UP;
+    }
+
+    public int getDirection() { return mDirection; }
+
+    public void setValue(float value) {
+        mValue = value;
+        reanchor();
+    }
+
+    public float getValue() { return mValue; }
+
+    public boolean isRunning() { return isRunning; }
+
+
+    public void start() {
+        isRunning = true;
+        isAnchored = false;
+    }
+
+    public void stop() {
+        isRunning = false;
+    }
+
+    /**
+     * Keeps the current value and ignores the time until the next update().
+     */
+    public void resume() {
+        isAnchored = false;
+    }
+
+    /**
+     * Computes the value at the given monotonic time, e.g. a Choreographer frame time.
+     */
+    public void update(long timeNanos) {
+        if (!isRunning) return;
+        if (!isAnchored) {
+            mAnchorValue = mValue;
+            mAnchorTimeNanos = timeNanos;
+            mLastTimeNanos = timeNanos;
+            isAnchored = true;
+            return;
+        }
+        mLastTimeNanos = timeNanos;
+
+        float value = valueAt(timeNanos);
+        // a zero range would turn around forever without using up any time
+        while (isRunning && mMax > mMin && mRate > 0
+                && (mDirection == DIRECTION_UP ? value > mMax : value < mMin)) {
+            float bound = mDirection == DIRECTION_UP ? mMax : mMin;
+            long crossed = mAnchorTimeNanos + (long) ((bound - mAnchorValue) / (mDirection * mRate) * 1000000.0);
+
+            boolean turn = mListener == null
+                    || (mDirection == DIRECTION_UP ? mListener.onMaxReached() : mListener.onMinReached());
+            if (!turn) {
+                isRunning = false;
+                value = bound;
+                break;
+            }
+            mDirection = -mDirection;
+            mAnchorValue = bound;
+            mAnchorTimeNanos = crossed;
+            value = valueAt(timeNanos);
+        }
+        mValue = value;
+    }
+
+
+    private float valueAt(long timeNanos) {
+        return (float) (mAnchorValue + mDirection * mRate * ((timeNanos - mAnchorTimeNanos) / 1000000.0));
+    }
+
+    // continues from the current value at the time of the last update
+    private void reanchor() {
+        mAnchorValue = mValue;
+        mAnchorTimeNanos = mLastTimeNanos;
+    }
+}
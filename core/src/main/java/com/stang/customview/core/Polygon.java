@@ -0,0 +1,40 @@
+package com.stang.customview.core;
+
+/**
+ * Places the vertices of a regular N-gon on the border of a rectangle.
+ * With 4 vertices and a start angle of 225 degrees they land exactly on the corners, whatever the aspect ratio.
+ * Angles are in degrees, clockwise on screen (y grows downwards).
+ */
+
+public final class Polygon {
+
+    private Polygon() {
+    }
+
+    public static float angle(int index, int count, float startAngle, boolean clockwise) {
+        float step = 360f / count;
+        return clockwise ? startAngle + step * index : startAngle - step * index;
+    }
+
+    /**
+     * Writes the point where the ray from the center at the given angle leaves a square into a keyframe,
+     * the square stretched to center +- (halfWidth, halfHeight). 45 degree angles hit the corners.
+     */
+    public static void placeOnRectangle(Kinematics kinematics, int dot, int keyframe, float angle,
+                                        float centerX, float centerY, float halfWidth, float halfHeight) {
+        double radians = Math.toRadians(angle);
+        float dx = (float) Math.cos(radians);
+        float dy = (float) Math.sin(radians);
+        float ax = Math.abs(dx);
+        float ay = Math.abs(dy);
+        // the side that is hit first gets its exact coordinate, so corners stay on whole pixels
+        if (ax >= ay - 0.00001f && ax > 0) {
+            dy = ay >= ax - 0.00001f ? Math.signum(dy) : dy / ax;
+            dx = Math.signum(dx);
+        } else if (ay > 0) {
+            dx = dx / ay;
+            dy = Math.signum(dy);
+        }
+        kinematics.setKeyframe(dot, keyframe, centerX + dx * halfWidth, centerY + dy * halfHeight);
+    }
+}
@@ -0,0 +1,32 @@
+package com.stang.customview.core;
+
+/**
+ * Clock that only moves when told to, for deterministic tests.
+ */
+
+public class VirtualClock implements Clock {
+    private long mNanoTime;
+
+
+    public VirtualClock() {
+        this(0);
+    }
+
+    public VirtualClock(long startNanos) {
+        mNanoTime = startNanos;
+    }
+
+    @Override
+    public long nanoTime() { return mNanoTime; }
+
+    public void setNanoTime(long nanoTime) {
+        if (nanoTime < mNanoTime) {
+            throw new IllegalArgumentException("time must not go back: " + nanoTime + " < " + mNanoTime);
+        }
+        mNanoTime = nanoTime;
+    }
+
+    public void advanceNanos(long nanos) { setNanoTime(mNanoTime + nanos); }
+
+    public void advanceMillis(long millis) { advanceNanos(millis * 1000000L); }
+}
@@ -0,0 +1,140 @@
+package com.stang.customview.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the collapse / explode cycle.
+ */
+public class CollapseAnimationTest {
+    private static final float EPS = 0.001f;
+
+    private CollapseAnimation mAnimation;
+    private final StringBuilder mEvents = new StringBuilder();
+
+    @Before
+    public void setUp() throws Exception {
+        mAnimation = new CollapseAnimation(4);
+        Kinematics v = mAnimation.getVertices();
+        for (int i = 0; i < 4; i++) {
+            v.setKeyframe(i, 0, i * 10, 0);
+            v.setKeyframe(i, 1, i * 10, 50);
+            v.setKeyframe(i, 2, 50, 50);
+        }
+        mAnimation.setTiming(1000, 200);
+        mAnimation.setListener(new CollapseAnimation.Listener() {
+            @Override
+            public void onCollapsed() { mEvents.append("C"); }
+
+            @Override
+            public void onExploded() { mEvents.append("E"); }
+
+            @Override
+            public void onRepeat() { mEvents.append("R"); }
+
+            @Override
+            public void onEnd() { mEvents.append("."); }
+        });
+    }
+
+    @Test
+    public void timing_matchesAnimatorSetGraph() throws Exception {
+        // playTo and playFrom: 1000 + 3 * 200, the fades take 2 * 1000
+        assertEquals(1600, mAnimation.getPhaseDuration(CollapseAnimation.PHASE_COLLAPSE), EPS);
+        assertEquals(2000, mAnimation.getPhaseDuration(CollapseAnimation.PHASE_DOT_FADE), EPS);
+        assertEquals(7200, mAnimation.getCycleDuration(), EPS);
+    }
+
+    @Test
+    public void advance_firesPhaseEventsInOrder() throws Exception {
+        mAnimation.setRepeatCount(1);
+        mAnimation.start();
+
+        mAnimation.advance(1599);
+        assertEquals("", mEvents.toString());
+        mAnimation.advance(1);
+        assertEquals("C", mEvents.toString());
+        assertEquals(CollapseAnimation.PHASE_DOT_FADE, mAnimation.getPhase());
+
+        mAnimation.advance(3600);
+        assertEquals("CE", mEvents.toString());
+
+        mAnimation.advance(2000);
+        assertEquals("CER", mEvents.toString());
+        assertTrue(mAnimation.isRunning());
+
+        mAnimation.advance(7200);
+        assertEquals("CERCE.", mEvents.toString());
+        assertFalse(mAnimation.isRunning());
+    }
+
+    @Test
+    public void advance_longStallPassesSeveralCycles() throws Exception {
+        mAnimation.setRepeatCount(0);
+        mAnimation.start();
+
+        mAnimation.advance(7200 * 2 + 100);
+        assertEquals("CERCER", mEvents.toString());
+        assertEquals(100, mAnimation.getPlayTime(), EPS);
+        assertEquals(2, mAnimation.getRepeatedCycles());
+    }
+
+    @Test
+    public void evaluate_positionsAndAlphas() throws Exception {
+        mAnimation.start();
+        assertEquals(0, mAnimation.getVertices().getY(0), EPS);
+        assertEquals(255, mAnimation.getDotAlpha());
+        assertEquals(0, mAnimation.getCenterAlpha());
+
+        // all vertices reached the center, dots fade
+        mAnimation.setPlayTime(1600 + 1000);
+        assertEquals(50, mAnimation.getVertices().getX(0), EPS);
+        assertEquals(50, mAnimation.getVertices().getX(3), EPS);
+        assertTrue(mAnimation.getDotAlpha() < 255);
+
+        // vertices are back, the center fades
+        mAnimation.setPlayTime(1600 + 2000 + 1600 + 1);
+        assertEquals(30, mAnimation.getVertices().getX(3), EPS);
+        assertEquals(0, mAnimation.getVertices().getY(3), EPS);
+        assertEquals(255, mAnimation.getDotAlpha());
+    }
+
+    @Test
+    public void pause_keepsPlayTime() throws Exception {
+        mAnimation.start();
+        mAnimation.advance(500);
+        mAnimation.pause();
+        mAnimation.advance(500);
+        assertEquals(500, mAnimation.getPlayTime(), EPS);
+        assertTrue(mAnimation.isPaused());
+
+        mAnimation.resume();
+        mAnimation.advance(500);
+        assertEquals(1000, mAnimation.getPlayTime(), EPS);
+    }
+
+    @Test
+    public void keyframeValue_endsOnKeyframes() throws Exception {
+        assertEquals(0, CollapseAnimation.keyframeValue(CollapseAnimation.CENTER_ALPHA, 0));
+        assertEquals(0, CollapseAnimation.keyframeValue(CollapseAnimation.CENTER_ALPHA, 1));
+        assertEquals(255, CollapseAnimation.keyframeValue(CollapseAnimation.DOT_ALPHA, 1));
+    }
+
+    @Test
+    public void setTiming_keepsPhaseAndFraction() throws Exception {
+        mAnimation.start();
+        // a quarter into the dot fade (1600 + 500 of 2000)
+        mAnimation.advance(2100);
+        assertEquals(CollapseAnimation.PHASE_DOT_FADE, mAnimation.getPhase());
+        int dotAlpha = mAnimation.getDotAlpha();
+
+        // twice as fast: the collapse takes 500 + 3 * 100, the fade 1000
+        mAnimation.setTiming(500, 100);
+        assertEquals(CollapseAnimation.PHASE_DOT_FADE, mAnimation.getPhase());
+        assertEquals(800 + 250, mAnimation.getPlayTime(), EPS);
+        assertEquals(dotAlpha, mAnimation.getDotAlpha());
+        assertEquals("", mEvents.toString().replace("C", ""));
+    }
+}
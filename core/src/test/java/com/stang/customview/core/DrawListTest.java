@@ -0,0 +1,157 @@
+package com.stang.customview.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the drawLines / drawPoints buffers.
+ */
+public class DrawListTest {
+
+    @Test
+    public void completeGraph_sameEdgeOrderAsDrawLineCalls() throws Exception {
+        DrawList list = new DrawList();
+        list.setCompleteGraph(4);
+        assertEquals(6, list.getEdgeCount());
+        assertEquals(24, list.getLineFloatCount());
+
+        float[] xs = {0, 10, 20, 30};
+        float[] ys = {1, 11, 21, 31};
+        assertTrue(list.update(xs, ys));
+
+        float[] expected = {
+                0, 1, 10, 11,   0, 1, 20, 21,   0, 1, 30, 31,
+                10, 11, 20, 21, 10, 11, 30, 31,
+                20, 21, 30, 31};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], list.getLines()[i], 0);
+        }
+        assertEquals(30, list.getPoints()[6], 0);
+        assertEquals(31, list.getPoints()[7], 0);
+    }
+
+    @Test
+    public void update_onlyRewritesMovedVertices() throws Exception {
+        DrawList list = new DrawList();
+        list.setCompleteGraph(3);
+        float[] xs = {0, 10, 20};
+        float[] ys = {0, 10, 20};
+        list.update(xs, ys);
+        assertFalse(list.update(xs, ys));
+
+        // vertex 2 is in the edges (0,2) and (1,2)
+        xs[2] = 99;
+        assertTrue(list.update(xs, ys));
+        float[] lines = list.getLines();
+        assertEquals(10, lines[2], 0);
+        assertEquals(99, lines[6], 0);
+        assertEquals(99, lines[10], 0);
+        assertEquals(99, list.getPoints()[4], 0);
+    }
+
+    @Test
+    public void invalidate_rewritesEverything() throws Exception {
+        DrawList list = new DrawList();
+        list.setCompleteGraph(2);
+        float[] xs = {1, 2};
+        float[] ys = {3, 4};
+        list.update(xs, ys);
+        list.getLines()[0] = -1;
+
+        assertFalse(list.update(xs, ys));
+        list.invalidate();
+        assertTrue(list.update(xs, ys));
+        assertEquals(1, list.getLines()[0], 0);
+    }
+
+    @Test
+    public void ring_connectsNeighbours() throws Exception {
+        DrawList list = new DrawList();
+        list.setTopology(DrawList.TOPOLOGY_RING, 5, DrawList.DEFAULT_EDGE_BUDGET);
+        assertEquals(5, list.getEdgeCount());
+        assertEquals(4, list.getEdgeFrom(4));
+        assertEquals(0, list.getEdgeTo(4));
+    }
+
+    @Test
+    public void star_endsInHub() throws Exception {
+        DrawList list = new DrawList();
+        list.setTopology(DrawList.TOPOLOGY_STAR, 3, DrawList.DEFAULT_EDGE_BUDGET);
+        list.setHub(50, 60);
+        list.update(new float[]{1, 2, 3}, new float[]{4, 5, 6});
+        assertEquals(3, list.getEdgeCount());
+        float[] lines = list.getLines();
+        assertEquals(3, lines[8], 0);
+        assertEquals(6, lines[9], 0);
+        assertEquals(50, lines[10], 0);
+        assertEquals(60, lines[11], 0);
+        assertEquals(6, list.getPointFloatCount());
+    }
+
+    @Test
+    public void completeGraphOverBudget_fallsBackToRing() throws Exception {
+        DrawList list = new DrawList();
+        list.setTopology(DrawList.TOPOLOGY_COMPLETE, 10000, DrawList.DEFAULT_EDGE_BUDGET);
+        assertEquals(DrawList.TOPOLOGY_RING, list.getTopology());
+        assertEquals(DrawList.DEFAULT_EDGE_BUDGET, list.getEdgeCount());
+
+        list.setTopology(DrawList.TOPOLOGY_COMPLETE, 64, DrawList.DEFAULT_EDGE_BUDGET);
+        assertEquals(DrawList.TOPOLOGY_COMPLETE, list.getTopology());
+        assertEquals(64 * 63 / 2, list.getEdgeCount());
+    }
+
+    @Test
+    public void update_collectsBoundsOfMovedVerticesAndTheirEdges() throws Exception {
+        DrawList list = new DrawList();
+        list.setTopology(DrawList.TOPOLOGY_RING, 4, DrawList.DEFAULT_EDGE_BUDGET);
+        float[] xs = {0, 100, 100, 0};
+        float[] ys = {0, 0, 100, 100};
+        list.update(xs, ys);
+
+        list.resetDirtyBounds();
+        assertFalse(list.hasDirtyBounds());
+        assertFalse(list.update(xs, ys));
+        assertFalse(list.hasDirtyBounds());
+
+        // vertex 1 moves from (100, 0) to (90, 10), its edges end in vertex 0 and 2
+        xs[1] = 90;
+        ys[1] = 10;
+        list.update(xs, ys);
+        assertTrue(list.hasDirtyBounds());
+        assertEquals(0, list.getDirtyLeft(), 0);
+        assertEquals(0, list.getDirtyTop(), 0);
+        assertEquals(100, list.getDirtyRight(), 0);
+        assertEquals(100, list.getDirtyBottom(), 0);
+
+        // vertex 0 only reaches vertex 1 and 3 on the left side
+        list.resetDirtyBounds();
+        xs[0] = 5;
+        list.update(xs, ys);
+        assertEquals(0, list.getDirtyLeft(), 0);
+        assertEquals(90, list.getDirtyRight(), 0);
+    }
+
+    @Test
+    public void setTransform_mapsNormalizedPositionsWithoutNewInput() throws Exception {
+        DrawList list = new DrawList();
+        list.setTopology(DrawList.TOPOLOGY_STAR, 2, DrawList.DEFAULT_EDGE_BUDGET);
+        list.setHub(0.5f, 0.5f);
+        float[] xs = {0, 1};
+        float[] ys = {0, 1};
+
+        list.setTransform(200, 100, 10, 20);
+        list.update(xs, ys);
+        assertEquals(210, list.getPoints()[2], 0);
+        assertEquals(120, list.getPoints()[3], 0);
+        // the hub end of the first edge
+        assertEquals(110, list.getLines()[2], 0);
+        assertEquals(70, list.getLines()[3], 0);
+
+        // a resize: same input, everything rewritten
+        list.setTransform(400, 100, 10, 20);
+        assertTrue(list.update(xs, ys));
+        assertEquals(410, list.getPoints()[2], 0);
+        assertEquals(210, list.getLines()[2], 0);
+    }
+}
@@ -0,0 +1,51 @@
+package com.stang.customview.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the frame rate cap.
+ */
+public class FrameLimiterTest {
+    private static final double VSYNC_60 = 1000000000.0 / 60;
+
+    private static int acceptedOf60(FrameLimiter limiter) {
+        int accepted = 0;
+        for (int i = 0; i < 60; i++) {
+            // a little jitter around every vsync
+            long time = (long) (i * VSYNC_60) + (i % 2 == 0 ? 500000 : -500000);
+            if (limiter.accept(time)) accepted++;
+        }
+        return accepted;
+    }
+
+    @Test
+    public void accept_capsA60HzDisplay() throws Exception {
+        FrameLimiter limiter = new FrameLimiter();
+        assertEquals(60, acceptedOf60(limiter));
+
+        limiter = new FrameLimiter();
+        limiter.setMaxFps(30);
+        assertEquals(30, acceptedOf60(limiter));
+
+        limiter = new FrameLimiter();
+        limiter.setMaxFps(20);
+        assertEquals(20, acceptedOf60(limiter));
+
+        limiter = new FrameLimiter();
+        limiter.setMaxFps(15);
+        assertEquals(15, acceptedOf60(limiter));
+        assertEquals(45, limiter.getSkippedCount());
+    }
+
+    @Test
+    public void reset_letsTheNextFrameThrough() throws Exception {
+        FrameLimiter limiter = new FrameLimiter();
+        limiter.setMaxFps(15);
+        assertTrue(limiter.accept(0));
+        assertFalse(limiter.accept(16000000));
+        limiter.reset();
+        assertTrue(limiter.accept(17000000));
+    }
+}
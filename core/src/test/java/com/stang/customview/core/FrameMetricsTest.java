@@ -0,0 +1,71 @@
+package com.stang.customview.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the frame timing histograms and counters.
+ */
+public class FrameMetricsTest {
+    private static final long FRAME = 16666667;
+
+    @Test
+    public void histogram_percentilesWithinTheBucket() throws Exception {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 100);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(100, histogram.getMin());
+        assertEquals(10000, histogram.getMax());
+        assertEquals(5050, histogram.getMean());
+
+        long median = histogram.getPercentile(50);
+        assertTrue(median >= 5000 && median < 10000);
+        assertEquals(10000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void histogram_bucketOfPowersOfTwo() throws Exception {
+        assertEquals(0, Histogram.bucketOf(0));
+        assertEquals(0, Histogram.bucketOf(1));
+        assertEquals(1, Histogram.bucketOf(2));
+        assertEquals(1, Histogram.bucketOf(3));
+        assertEquals(10, Histogram.bucketOf(1024));
+        assertEquals(Histogram.BUCKET_COUNT - 1, Histogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void onFrame_countsMissedFrames() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.onFrame(0, FRAME);
+        metrics.onFrame(FRAME, FRAME);
+        // two vsyncs dropped
+        metrics.onFrame(4 * FRAME, FRAME);
+
+        // a pause is not a miss
+        metrics.onPause();
+        metrics.onFrame(100 * FRAME, FRAME);
+
+        FrameMetrics.Snapshot snapshot = metrics.snapshot(null);
+        assertEquals(4, snapshot.frameCount);
+        assertEquals(2, snapshot.missedFrameCount);
+    }
+
+    @Test
+    public void onDraw_recordsLatencyOncePerFrame() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.onFrame(1000000, FRAME);
+        metrics.onDraw(3000000, 3500000);
+        metrics.onDraw(5000000, 5500000);
+        metrics.onCycle();
+
+        FrameMetrics.Snapshot snapshot = metrics.snapshot(new FrameMetrics.Snapshot());
+        assertEquals(2, snapshot.drawTimeMicros.getCount());
+        assertEquals(500, snapshot.drawTimeMicros.getMax());
+        assertEquals(1, snapshot.latencyMicros.getCount());
+        assertEquals(2000, snapshot.latencyMicros.getMax());
+        assertEquals(1, snapshot.cycleCount);
+    }
+}
@@ -0,0 +1,101 @@
+package com.stang.customview.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the triple buffered frame state hand over.
+ */
+public class FrameStateBufferTest {
+
+    private static void fill(FrameState state, int frame) {
+        float[] xs = {frame, frame, frame, frame};
+        state.setPositions(xs, xs, xs.length);
+        state.setAlphas(frame, frame);
+        state.setColors(frame, frame);
+        state.setFrameTimeNanos(frame);
+    }
+
+    @Test
+    public void getReadState_returnsTheLatestPublished() throws Exception {
+        FrameStateBuffer buffer = new FrameStateBuffer(4);
+        fill(buffer.getWriteState(), 1);
+        buffer.publish();
+        fill(buffer.getWriteState(), 2);
+        buffer.publish();
+        assertTrue(buffer.hasNewFrame());
+        assertEquals(2, buffer.getReadState().getFrameTimeNanos());
+        assertFalse(buffer.hasNewFrame());
+        // nothing new: the same state again
+        assertEquals(2, buffer.getReadState().getFrameTimeNanos());
+    }
+
+    @Test
+    public void getWriteState_neverHandsOutTheReadState() throws Exception {
+        FrameStateBuffer buffer = new FrameStateBuffer(4);
+        for (int frame = 1; frame < 10; frame++) {
+            fill(buffer.getWriteState(), frame);
+            buffer.publish();
+            FrameState read = buffer.getReadState();
+            assertNotSame(read, buffer.getWriteState());
+            assertEquals(frame, read.getFrameTimeNanos());
+        }
+    }
+
+    @Test
+    public void setPositions_reusesTheArrays() throws Exception {
+        FrameState state = new FrameState(4);
+        float[] xs = state.getXs();
+        state.setPositions(new float[]{1, 2, 3}, new float[]{4, 5, 6}, 3);
+        assertSame(xs, state.getXs());
+        assertEquals(3, state.getCount());
+        assertEquals(6, state.getYs()[2], 0);
+        state.setPositions(new float[6], new float[6], 6);
+        assertEquals(6, state.getXs().length);
+    }
+
+    @Test
+    public void getReadState_concurrentWriterNeverTears() throws Exception {
+        final int frames = 200000;
+        final FrameStateBuffer buffer = new FrameStateBuffer(4);
+        final AtomicBoolean done = new AtomicBoolean();
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int frame = 1; frame <= frames; frame++) {
+                    fill(buffer.getWriteState(), frame);
+                    buffer.publish();
+                }
+                done.set(true);
+            }
+        });
+        writer.start();
+
+        long last = 0;
+        long reads = 0;
+        while (!done.get() || buffer.hasNewFrame()) {
+            FrameState state = buffer.getReadState();
+            long frame = state.getFrameTimeNanos();
+            // every field belongs to the same frame
+            for (int i = 0; i < state.getCount(); i++) {
+                assertEquals(frame, (long) state.getXs()[i]);
+                assertEquals(frame, (long) state.getYs()[i]);
+            }
+            assertEquals(frame, state.getCenterAlpha());
+            assertEquals(frame, state.getDotAlpha());
+            assertEquals(frame, state.getLineColor());
+            assertEquals(frame, state.getDotColor());
+            // frames never go back in time
+            assertTrue(frame >= last);
+            last = frame;
+            reads++;
+        }
+        writer.join();
+        assertEquals(frames, last);
+        assertTrue(reads > 0);
+    }
+}
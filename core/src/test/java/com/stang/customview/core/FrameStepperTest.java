@@ -0,0 +1,156 @@
+package com.stang.customview.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Local unit tests stepping the animations frame by frame on a virtual clock.
+ */
+public class FrameStepperTest {
+    private static final float EPS = 0.001f;
+    private static final long FRAME_MILLIS = 10;
+
+    private final VirtualClock mClock = new VirtualClock(1000000000L);
+    private final StringBuilder mEvents = new StringBuilder();
+    private CollapseAnimation mAnimation;
+    private FrameStepper mStepper;
+
+    // drives the animation the way RectAnimationView's ticker client does
+    private final FrameStepper.Callback mCollapseFrame = new FrameStepper.Callback() {
+        private long mLastFrameTimeNanos = 0;
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mLastFrameTimeNanos != 0) {
+                mAnimation.advance((frameTimeNanos - mLastFrameTimeNanos) / 1000000f);
+            }
+            mLastFrameTimeNanos = frameTimeNanos;
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        mAnimation = new CollapseAnimation(4);
+        Kinematics v = mAnimation.getVertices();
+        float[] xs = {0, 1, 1, 0};
+        float[] ys = {0, 0, 1, 1};
+        for (int i = 0; i < 4; i++) {
+            v.setKeyframe(i, CollapseAnimation.KEYFRAME_START, xs[i], ys[i]);
+            v.setKeyframe(i, 1, (xs[i] + xs[(i + 1) % 4]) / 2, (ys[i] + ys[(i + 1) % 4]) / 2);
+            v.setKeyframe(i, CollapseAnimation.KEYFRAME_END, 0.5f, 0.5f);
+        }
+        mAnimation.setTiming(1000, 200);
+        mAnimation.setListener(new CollapseAnimation.Listener() {
+            @Override
+            public void onCollapsed() { mEvents.append("C@").append(elapsedMillis()).append(' '); }
+
+            @Override
+            public void onExploded() { mEvents.append("E@").append(elapsedMillis()).append(' '); }
+
+            @Override
+            public void onRepeat() { mEvents.append("R@").append(elapsedMillis()).append(' '); }
+
+            @Override
+            public void onEnd() { mEvents.append("."); }
+        });
+
+        mStepper = new FrameStepper(mClock, mCollapseFrame);
+        mStepper.setFrameIntervalNanos(FRAME_MILLIS * 1000000L);
+        mAnimation.start();
+        mStepper.frame();
+    }
+
+    private long elapsedMillis() {
+        return (mClock.nanoTime() - 1000000000L) / 1000000L;
+    }
+
+    @Test
+    public void collapse_positionsAtExactTimes() throws Exception {
+        Kinematics v = mAnimation.getVertices();
+        mStepper.stepMillis(600);
+        // the last vertex starts only now
+        assertEquals(0, v.getX(3), EPS);
+        assertEquals(1, v.getY(3), EPS);
+        assertTrue(v.getX(0) > 0);
+
+        mStepper.stepMillis(400);
+        assertEquals(0.5f, v.getX(0), EPS);
+        assertEquals(0.5f, v.getY(0), EPS);
+        assertEquals(255, mAnimation.getDotAlpha());
+        assertEquals(0, mAnimation.getCenterAlpha());
+    }
+
+    @Test
+    public void cycle_callbacksAtExactTimes() throws Exception {
+        mStepper.stepMillis(1590);
+        assertEquals("", mEvents.toString());
+        mStepper.step();
+        assertEquals("C@1600 ", mEvents.toString());
+
+        // halfway through the dot fade
+        mStepper.stepMillis(1000);
+        assertEquals(CollapseAnimation.PHASE_DOT_FADE, mAnimation.getPhase());
+        assertEquals(CollapseAnimation.keyframeValue(CollapseAnimation.DOT_ALPHA, 0.5f), mAnimation.getDotAlpha());
+
+        mStepper.stepMillis(7200 - 2600);
+        assertEquals("C@1600 E@5200 R@7200 ", mEvents.toString());
+        assertEquals(CollapseAnimation.PHASE_COLLAPSE, mAnimation.getPhase());
+        assertEquals(0, mAnimation.getPlayTime(), EPS);
+    }
+
+    @Test
+    public void timeline_bouncesAtExactTimes() throws Exception {
+        final int[] maxReached = new int[1];
+        final PingPongTimeline timeline = new PingPongTimeline(0, 100, 0.1f);
+        timeline.setListener(new PingPongTimeline.Listener() {
+            @Override
+            public boolean onMaxReached() {
+                maxReached[0]++;
+                return true;
+            }
+
+            @Override
+            public boolean onMinReached() { return true; }
+        });
+        FrameStepper stepper = new FrameStepper(mClock, new FrameStepper.Callback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                timeline.update(frameTimeNanos);
+            }
+        });
+        stepper.setFrameIntervalNanos(FRAME_MILLIS * 1000000L);
+        timeline.start();
+        stepper.frame();
+
+        stepper.stepMillis(500);
+        assertEquals(50, timeline.getValue(), EPS);
+        stepper.stepMillis(1000);
+        assertEquals(1, maxReached[0]);
+        assertEquals(PingPongTimeline.DIRECTION_DOWN, timeline.getDirection());
+        assertEquals(50, timeline.getValue(), EPS);
+    }
+
+    @Test
+    public void step_allocatesNothingPerFrame() throws Exception {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        long thread = Thread.currentThread().getId();
+
+        mAnimation.setRepeatCount(0);
+        mAnimation.setListener(null);
+        // warm up, then measure a few cycles
+        mStepper.step(2000);
+        long before = threads.getThreadAllocatedBytes(thread);
+        mStepper.step(5000);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertTrue("allocated " + allocated + " bytes in 5000 frames", allocated < 1024);
+    }
+}
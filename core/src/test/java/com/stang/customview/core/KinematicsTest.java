@@ -0,0 +1,91 @@
+package com.stang.customview.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the batched position evaluation.
+ */
+public class KinematicsTest {
+    private static final float EPS = 0.001f;
+
+    private static Kinematics lPath() {
+        Kinematics k = new Kinematics(2, 3);
+        // goes down first, then right
+        k.setKeyframe(0, 0, 0, 0);
+        k.setKeyframe(0, 1, 0, 100);
+        k.setKeyframe(0, 2, 100, 100);
+        // same path, starts 50 units later
+        k.setKeyframe(1, 0, 0, 0);
+        k.setKeyframe(1, 1, 0, 100);
+        k.setKeyframe(1, 2, 100, 100);
+        k.setDelay(1, 50);
+        return k;
+    }
+
+    @Test
+    public void evaluate_linearPath() throws Exception {
+        Kinematics k = lPath();
+
+        k.evaluate(25, 100, false, Kinematics.INTERPOLATOR_LINEAR);
+        assertEquals(0, k.getX(0), EPS);
+        assertEquals(50, k.getY(0), EPS);
+        assertEquals(0, k.getX(1), EPS);
+        assertEquals(0, k.getY(1), EPS);
+
+        k.evaluate(75, 100, false, Kinematics.INTERPOLATOR_LINEAR);
+        assertEquals(50, k.getX(0), EPS);
+        assertEquals(100, k.getY(0), EPS);
+        assertEquals(0, k.getX(1), EPS);
+        assertEquals(50, k.getY(1), EPS);
+    }
+
+    @Test
+    public void evaluate_clampsOutsideOfDuration() throws Exception {
+        Kinematics k = lPath();
+
+        k.evaluate(-1000, 100, false, Kinematics.INTERPOLATOR_LINEAR);
+        assertEquals(0, k.getX(0), EPS);
+        assertEquals(0, k.getY(0), EPS);
+
+        k.evaluate(1000, 100, false, Kinematics.INTERPOLATOR_LINEAR);
+        assertEquals(100, k.getX(1), EPS);
+        assertEquals(100, k.getY(1), EPS);
+    }
+
+    @Test
+    public void evaluate_reverseStartsAtLastKeyframe() throws Exception {
+        Kinematics k = lPath();
+
+        k.evaluate(0, 100, true, Kinematics.INTERPOLATOR_ACCELERATE_DECELERATE);
+        assertEquals(100, k.getX(0), EPS);
+        assertEquals(100, k.getY(0), EPS);
+
+        k.evaluate(100, 100, true, Kinematics.INTERPOLATOR_ACCELERATE_DECELERATE);
+        assertEquals(0, k.getX(0), EPS);
+        assertEquals(0, k.getY(0), EPS);
+    }
+
+    @Test
+    public void ease_matchesAccelerateDecelerateInterpolator() throws Exception {
+        for (int i = 0; i <= 100; i++) {
+            float f = i / 100f;
+            float expected = (float) (Math.cos((f + 1) * Math.PI) / 2.0 + 0.5);
+            assertEquals(expected, Kinematics.ease(f), 0.0001f);
+        }
+    }
+
+    @Test
+    public void setCount_keepsExistingKeyframes() throws Exception {
+        Kinematics k = lPath();
+        k.setCount(1000);
+        assertEquals(1000, k.getCount());
+        assertEquals(100, k.getKeyframeX(1, 2), EPS);
+        assertEquals(50, k.getDelay(1), EPS);
+
+        k.moveToKeyframe(2);
+        assertEquals(100, k.getX(0), EPS);
+        assertEquals(0, k.getX(999), EPS);
+    }
+}
@@ -0,0 +1,81 @@
+package com.stang.customview.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the lock free pending value hand over.
+ */
+public class PendingSlotTest {
+
+    private static final PendingSlot.Merger<long[]> SUM = new PendingSlot.Merger<long[]>() {
+        @Override
+        public long[] merge(long[] pending, long[] update) {
+            return new long[]{pending[0] + update[0]};
+        }
+    };
+
+    @Test
+    public void offer_wakesUpOncePerBatch() throws Exception {
+        PendingSlot<long[]> slot = new PendingSlot<>(SUM);
+        assertTrue(slot.offer(new long[]{1}));
+        assertFalse(slot.offer(new long[]{2}));
+        assertFalse(slot.offer(new long[]{3}));
+        assertEquals(6, slot.take()[0]);
+        assertNull(slot.take());
+        assertTrue(slot.offer(new long[]{4}));
+    }
+
+    @Test
+    public void offer_withoutMergerKeepsTheLatest() throws Exception {
+        PendingSlot<String> slot = new PendingSlot<>(null);
+        slot.offer("a");
+        slot.offer("b");
+        assertEquals("b", slot.take());
+    }
+
+    @Test
+    public void offer_concurrentProducersLoseNothing() throws Exception {
+        final int producers = 4;
+        final int updates = 20000;
+        final PendingSlot<long[]> slot = new PendingSlot<>(SUM);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(producers);
+        final AtomicInteger wakeUps = new AtomicInteger();
+
+        for (int p = 0; p < producers; p++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < updates; i++) {
+                        if (slot.offer(new long[]{1})) wakeUps.incrementAndGet();
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        start.countDown();
+        long total = 0;
+        int takes = 0;
+        while (done.getCount() > 0 || !slot.isEmpty()) {
+            long[] taken = slot.take();
+            if (taken != null) {
+                total += taken[0];
+                takes++;
+            }
+        }
+        assertEquals((long) producers * updates, total);
+        // every non empty take was announced by exactly one wake up
+        assertEquals(takes, wakeUps.get());
+    }
+}
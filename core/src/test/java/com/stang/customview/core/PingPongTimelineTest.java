@@ -0,0 +1,106 @@
+package com.stang.customview.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the time based timeline.
+ */
+public class PingPongTimelineTest {
+    private static final float EPS = 0.001f;
+    private static final long MS = 1000000L;
+
+    private static class CountingListener implements PingPongTimeline.Listener {
+        int maxCount = 0;
+        int minCount = 0;
+        int turns = Integer.MAX_VALUE;
+
+        @Override
+        public boolean onMaxReached() {
+            maxCount++;
+            return --turns >= 0;
+        }
+
+        @Override
+        public boolean onMinReached() {
+            minCount++;
+            return --turns >= 0;
+        }
+    }
+
+    @Test
+    public void update_dependsOnElapsedTimeOnly() throws Exception {
+        PingPongTimeline fast = new PingPongTimeline(0, 100, 0.1f);
+        PingPongTimeline slow = new PingPongTimeline(0, 100, 0.1f);
+        fast.start();
+        slow.start();
+        fast.update(1000 * MS);
+        slow.update(1000 * MS);
+
+        // 60 fps against 15 fps over the same 400 ms
+        for (int i = 1; i <= 24; i++) fast.update(1000 * MS + i * 400 * MS / 24);
+        for (int i = 1; i <= 6; i++) slow.update(1000 * MS + i * 400 * MS / 6);
+
+        assertEquals(40, fast.getValue(), EPS);
+        assertEquals(40, slow.getValue(), EPS);
+    }
+
+    @Test
+    public void update_reportsEveryBoundCrossedDuringAStall() throws Exception {
+        PingPongTimeline timeline = new PingPongTimeline(0, 100, 0.1f);
+        CountingListener listener = new CountingListener();
+        timeline.setListener(listener);
+        timeline.start();
+        timeline.update(0);
+
+        // 2500 ms = up, down and a quarter of the way up again
+        timeline.update(2500 * MS);
+        assertEquals(1, listener.maxCount);
+        assertEquals(1, listener.minCount);
+        assertEquals(PingPongTimeline.DIRECTION_UP, timeline.getDirection());
+        assertEquals(50, timeline.getValue(), EPS);
+    }
+
+    @Test
+    public void update_stopsAtTheBoundWhenTheListenerSaysSo() throws Exception {
+        PingPongTimeline timeline = new PingPongTimeline(0, 100, 0.1f);
+        CountingListener listener = new CountingListener();
+        listener.turns = 0;
+        timeline.setListener(listener);
+        timeline.start();
+        timeline.update(0);
+
+        timeline.update(5000 * MS);
+        assertFalse(timeline.isRunning());
+        assertEquals(1, listener.maxCount);
+        assertEquals(100, timeline.getValue(), EPS);
+    }
+
+    @Test
+    public void resume_skipsTheTimeInBetween() throws Exception {
+        PingPongTimeline timeline = new PingPongTimeline(0, 100, 0.1f);
+        timeline.start();
+        timeline.update(0);
+        timeline.update(100 * MS);
+        assertEquals(10, timeline.getValue(), EPS);
+
+        timeline.resume();
+        timeline.update(60000 * MS);
+        assertEquals(10, timeline.getValue(), EPS);
+        timeline.update(60100 * MS);
+        assertEquals(20, timeline.getValue(), EPS);
+    }
+
+    @Test
+    public void setRate_keepsTheCurrentValue() throws Exception {
+        PingPongTimeline timeline = new PingPongTimeline(0, 100, 0.1f);
+        timeline.start();
+        timeline.update(0);
+        timeline.update(200 * MS);
+        timeline.setRate(0.2f);
+        assertEquals(20, timeline.getValue(), EPS);
+        timeline.update(300 * MS);
+        assertEquals(40, timeline.getValue(), EPS);
+    }
+}
@@ -0,0 +1,40 @@
+package com.stang.customview.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for placing polygon vertices on a rectangle.
+ */
+public class PolygonTest {
+
+    @Test
+    public void fourVertices_landOnTheCorners() throws Exception {
+        Kinematics k = new Kinematics(4, 2);
+        for (int i = 0; i < 4; i++) {
+            Polygon.placeOnRectangle(k, i, 0, Polygon.angle(i, 4, 225, false), 100, 50, 80, 30);
+        }
+        // top left, bottom left, bottom right, top right
+        assertEquals(20, k.getKeyframeX(0, 0), 0.0001f);
+        assertEquals(20, k.getKeyframeY(0, 0), 0.0001f);
+        assertEquals(20, k.getKeyframeX(1, 0), 0.0001f);
+        assertEquals(80, k.getKeyframeY(1, 0), 0.0001f);
+        assertEquals(180, k.getKeyframeX(2, 0), 0.0001f);
+        assertEquals(80, k.getKeyframeY(2, 0), 0.0001f);
+        assertEquals(180, k.getKeyframeX(3, 0), 0.0001f);
+        assertEquals(20, k.getKeyframeY(3, 0), 0.0001f);
+    }
+
+    @Test
+    public void anyAngle_staysOnTheBorder() throws Exception {
+        Kinematics k = new Kinematics(1, 2);
+        for (int a = 0; a < 360; a += 7) {
+            Polygon.placeOnRectangle(k, 0, 0, a, 0, 0, 40, 20);
+            float x = Math.abs(k.getKeyframeX(0, 0));
+            float y = Math.abs(k.getKeyframeY(0, 0));
+            assertTrue(x <= 40.001f && y <= 20.001f);
+            assertTrue(Math.abs(x - 40) < 0.001f || Math.abs(y - 20) < 0.001f);
+        }
+    }
+}